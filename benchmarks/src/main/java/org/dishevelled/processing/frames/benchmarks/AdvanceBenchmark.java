@@ -0,0 +1,131 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames.benchmarks;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dishevelled.processing.frames.Animation;
+import org.dishevelled.processing.frames.AnimationGroup;
+import org.dishevelled.processing.frames.Frames;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import processing.core.PImage;
+
+/**
+ * Benchmarks for advancing large numbers of animations, one tick per operation.
+ *
+ * @author  Michael Heuer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class AdvanceBenchmark
+{
+    /** Number of animations. */
+    @Param({ "1000", "50000" })
+    public int count;
+
+    /** Animations. */
+    private Animation[] animations;
+
+    /** Animation group. */
+    private AnimationGroup group;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Frames library = new Frames(Fixtures.createApplet());
+        List<PImage> walk = Fixtures.createImages(4, 24, 24);
+        List<PImage> die = Fixtures.createImages(16, 24, 24);
+
+        animations = new Animation[count];
+        group = library.createAnimationGroup();
+        int walkSequence = group.addSequence(walk, true);
+        int dieSequence = group.addSequence(die, false);
+        for (int i = 0; i < count; i++)
+        {
+            boolean looped = (i % 4) != 0;
+            animations[i] = looped ? library.createLoopedAnimation(walk) : library.createAnimation(die);
+            group.add(looped ? walkSequence : dieSequence);
+        }
+    }
+
+    @Benchmark
+    public void advance(final Blackhole blackhole)
+    {
+        for (Animation animation : animations)
+        {
+            blackhole.consume(animation.advance());
+        }
+    }
+
+    @Benchmark
+    public void advanceAndGetCurrentFrame(final Blackhole blackhole)
+    {
+        for (Animation animation : animations)
+        {
+            animation.advance();
+            blackhole.consume(animation.getCurrentFrame());
+        }
+    }
+
+    @Benchmark
+    public void advanceGroup(final Blackhole blackhole)
+    {
+        group.advance();
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(group.getCurrentFrame(i));
+        }
+    }
+
+    @Benchmark
+    public void advanceGroupParallel(final Blackhole blackhole)
+    {
+        group.advanceParallel();
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(group.getCurrentFrame(i));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dishevelled.processing.frames.Frames;
+import org.dishevelled.processing.frames.Region;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import processing.core.PImage;
+
+/**
+ * Benchmarks for creating frame lists from image sequences and sprite sheets.
+ *
+ * @author  Michael Heuer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CreateFrameListBenchmark
+{
+    /** Number of frames. */
+    @Param({ "16", "64" })
+    public int frames;
+
+    /** Frame size. */
+    @Param({ "24", "96" })
+    public int size;
+
+    /** Frames library, with caching disabled. */
+    private Frames uncached;
+
+    /** Frames library, with caching enabled. */
+    private Frames cached;
+
+    /** Directory of frame images. */
+    private File directory;
+
+    /** Base image for the image sequence. */
+    private String baseImage;
+
+    /** Sprite sheet file name. */
+    private String spriteSheetName;
+
+    /** Sprite sheet image. */
+    private PImage spriteSheet;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        uncached = new Frames(Fixtures.createApplet());
+        uncached.getCache().setBudget(0L);
+        cached = new Frames(Fixtures.createApplet());
+
+        directory = Files.createTempDirectory("frames-benchmark").toFile();
+        baseImage = new File(directory, "frame").getAbsolutePath();
+        int leadingZeros = (frames / 10) + 1;
+        List<PImage> images = Fixtures.createImages(frames, size, size);
+        for (int i = 0; i < frames; i++)
+        {
+            Fixtures.writePng(images.get(i), new File(String.format("%s%0" + leadingZeros + "d.png", baseImage, i)));
+        }
+        spriteSheet = uncached.createSpriteSheet(images);
+        File spriteSheetFile = new File(directory, "sheet.png");
+        Fixtures.writePng(spriteSheet, spriteSheetFile);
+        spriteSheetName = spriteSheetFile.getAbsolutePath();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        uncached.dispose();
+        cached.dispose();
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public List<PImage> createFrameListSequence()
+    {
+        return uncached.createFrameList(baseImage, ".png", frames);
+    }
+
+    @Benchmark
+    public List<PImage> createFrameListSequenceAsync() throws InterruptedException
+    {
+        return uncached.loadFrameList(baseImage, ".png", frames).await();
+    }
+
+    @Benchmark
+    public List<PImage> createFrameListSpriteSheetName()
+    {
+        return uncached.createFrameList(spriteSheetName, 0, 0, size, size, frames);
+    }
+
+    @Benchmark
+    public List<PImage> createFrameListSpriteSheetNameCached()
+    {
+        return cached.createFrameList(spriteSheetName, 0, 0, size, size, frames);
+    }
+
+    @Benchmark
+    public List<PImage> createFrameListSpriteSheet()
+    {
+        return uncached.createFrameList(spriteSheet, 0, 0, size, size, frames);
+    }
+
+    @Benchmark
+    public List<Region> createRegionList()
+    {
+        return uncached.createRegionList(spriteSheet, 0, 0, size, size, frames);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames.benchmarks;
+
+import java.awt.image.BufferedImage;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Headless fixtures shared by the benchmarks.
+ *
+ * @author  Michael Heuer
+ */
+final class Fixtures
+{
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Fixtures()
+    {
+        // empty
+    }
+
+
+    /**
+     * Create and return a new applet suitable for loading images by absolute path without a running sketch.
+     *
+     * @return a new applet suitable for loading images by absolute path without a running sketch
+     */
+    static PApplet createApplet()
+    {
+        PApplet applet = new PApplet();
+        // initializes the sketch path, required before loading files outside of a running sketch
+        applet.sketchPath();
+        return applet;
+    }
+
+    /**
+     * Create and return a new image of the specified size filled with pseudo-random
+     * pixel art, a few opaque colors on a transparent border.
+     *
+     * @param width width
+     * @param height height
+     * @param seed random seed
+     * @return a new image of the specified size filled with pseudo-random pixel art
+     */
+    static PImage createImage(final int width, final int height, final long seed)
+    {
+        Random random = new Random(seed);
+        int[] palette = new int[8];
+        for (int i = 0; i < palette.length; i++)
+        {
+            palette[i] = random.nextInt() | 0xff000000;
+        }
+        PImage image = new PImage(width, height, PImage.ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                boolean border = x < 2 || y < 2 || x >= width - 2 || y >= height - 2;
+                image.pixels[y * width + x] = border ? 0 : palette[random.nextInt(palette.length)];
+            }
+        }
+        image.updatePixels();
+        return image;
+    }
+
+    /**
+     * Create and return a new list of images of the specified size.
+     *
+     * @param count number of images
+     * @param width width
+     * @param height height
+     * @return a new list of images of the specified size
+     */
+    static List<PImage> createImages(final int count, final int width, final int height)
+    {
+        List<PImage> images = new ArrayList<PImage>(count);
+        for (int i = 0; i < count; i++)
+        {
+            images.add(createImage(width, height, i));
+        }
+        return images;
+    }
+
+    /**
+     * Write the specified image to the specified file as PNG.
+     *
+     * @param image image to write
+     * @param file file to write to
+     * @throws IOException if an I/O error occurs
+     */
+    static void writePng(final PImage image, final File file) throws IOException
+    {
+        BufferedImage bufferedImage = new BufferedImage(image.width, image.height, BufferedImage.TYPE_INT_ARGB);
+        image.loadPixels();
+        bufferedImage.setRGB(0, 0, image.width, image.height, image.pixels, 0, image.width);
+        ImageIO.write(bufferedImage, "png", file);
+    }
+
+    /**
+     * Delete the specified directory and the files in it.
+     *
+     * @param directory directory to delete
+     */
+    static void delete(final File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames.benchmarks;
+
+import java.util.List;
+
+import java.util.concurrent.TimeUnit;
+
+import org.dishevelled.processing.frames.Frames;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import processing.core.PImage;
+
+/**
+ * Benchmarks for flipping frame images.
+ *
+ * @author  Michael Heuer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FlipBenchmark
+{
+    /** Frame size. */
+    @Param({ "24", "256" })
+    public int size;
+
+    /** Number of frames. */
+    @Param({ "64" })
+    public int frames;
+
+    /** Frames library. */
+    private Frames library;
+
+    /** Single frame image. */
+    private PImage image;
+
+    /** List of frame images. */
+    private List<PImage> images;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        library = new Frames(Fixtures.createApplet());
+        image = Fixtures.createImage(size, size, 42L);
+        images = Fixtures.createImages(frames, size, size);
+    }
+
+    @Benchmark
+    public PImage flipHorizontally()
+    {
+        return library.flipHorizontally(image);
+    }
+
+    @Benchmark
+    public PImage flipVertically()
+    {
+        return library.flipVertically(image);
+    }
+
+    @Benchmark
+    public PImage flipHorizontallyInPlace()
+    {
+        return library.flipHorizontallyInPlace(image);
+    }
+
+    @Benchmark
+    public PImage flipVerticallyInPlace()
+    {
+        return library.flipVerticallyInPlace(image);
+    }
+
+    @Benchmark
+    public List<PImage> flipHorizontallyList()
+    {
+        return library.flipHorizontally(images);
+    }
+
+    @Benchmark
+    public List<PImage> flipVerticallyList()
+    {
+        return library.flipVertically(images);
+    }
+}
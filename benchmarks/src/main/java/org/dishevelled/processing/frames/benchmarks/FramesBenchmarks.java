@@ -0,0 +1,68 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the Frames benchmarks headless, recording throughput and allocation rates.
+ *
+ * @author  Michael Heuer
+ */
+public final class FramesBenchmarks
+{
+
+    /**
+     * Private no-arg constructor.
+     */
+    private FramesBenchmarks()
+    {
+        // empty
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line arguments, passed to JMH
+     * @throws CommandLineOptionException if the command line arguments are not valid
+     * @throws RunnerException if a benchmark fails to run
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException
+    {
+        System.setProperty("java.awt.headless", "true");
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
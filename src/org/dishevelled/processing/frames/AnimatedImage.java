@@ -0,0 +1,127 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import processing.core.PImage;
+
+/**
+ * Decoded animated image, the fully composited frames of an animated GIF or APNG
+ * with their delays.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class AnimatedImage
+{
+    /** Frame images. */
+    private final List<PImage> frames;
+
+    /** Frame durations in milliseconds. */
+    private final int[] durations;
+
+    /** Number of times to play, or zero to play forever. */
+    private final int loopCount;
+
+
+    /**
+     * Create a new animated image.
+     *
+     * @param frames list of frame images, must not be null
+     * @param durations frame durations in milliseconds, must not be null and must be
+     *    the same length as <code>frames</code>
+     * @param loopCount number of times to play, or zero to play forever
+     */
+    AnimatedImage(final List<PImage> frames, final int[] durations, final int loopCount)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (durations == null)
+        {
+            throw new NullPointerException("durations must not be null");
+        }
+        if (durations.length != frames.size())
+        {
+            throw new IllegalArgumentException("durations must be the same length as frames");
+        }
+        this.frames = Collections.unmodifiableList(new ArrayList<PImage>(frames));
+        this.durations = durations.clone();
+        this.loopCount = loopCount;
+    }
+
+
+    /**
+     * Return the frame images for this animated image.
+     *
+     * @return the frame images for this animated image
+     */
+    public List<PImage> getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Return the frame durations in milliseconds for this animated image.
+     *
+     * @return the frame durations in milliseconds for this animated image
+     */
+    public int[] getDurations()
+    {
+        return durations.clone();
+    }
+
+    /**
+     * Return the number of times this animated image should play, or zero to play forever.
+     *
+     * @return the number of times this animated image should play, or zero to play forever
+     */
+    public int getLoopCount()
+    {
+        return loopCount;
+    }
+
+    /**
+     * Create and return a new timed frames animation of this animated image.
+     *
+     * @return a new timed frames animation of this animated image
+     */
+    public TimedFramesAnimation createTimedAnimation()
+    {
+        return new TimedFramesAnimation(frames, durations, false);
+    }
+
+    /**
+     * Create and return a new looped timed frames animation of this animated image.
+     *
+     * @return a new looped timed frames animation of this animated image
+     */
+    public TimedFramesAnimation createLoopedTimedAnimation()
+    {
+        return new TimedFramesAnimation(frames, durations, true);
+    }
+}
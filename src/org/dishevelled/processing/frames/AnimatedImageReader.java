@@ -0,0 +1,963 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.awt.image.BufferedImage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+
+import javax.imageio.stream.ImageInputStream;
+
+import org.w3c.dom.Node;
+
+import processing.core.PImage;
+
+/**
+ * Streaming reader for animated GIF and APNG images.
+ *
+ * <p>
+ * Frames are decoded one at a time and composited onto a single canvas buffer,
+ * honoring each frame's offset, disposal, and blending, so that every frame returned
+ * is complete.  Only the compressed data and decoded pixels of the frame being read
+ * are held in memory besides the canvas, so files with hundreds of frames can be
+ * read into a frame list, or frame by frame, without holding intermediate copies.
+ * </p>
+ *
+ * <p>
+ * GIF images are decoded with <code>javax.imageio</code>.  APNG images are parsed chunk
+ * by chunk, verifying chunk CRCs, and each frame's image data is decoded as a standalone
+ * PNG.  Plain PNG images are read as a single frame.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class AnimatedImageReader implements Closeable
+{
+    /** Disposal leaving the canvas as is. */
+    static final int DISPOSE_NONE = 0;
+
+    /** Disposal clearing the frame area to transparent. */
+    static final int DISPOSE_BACKGROUND = 1;
+
+    /** Disposal restoring the frame area to its previous contents. */
+    static final int DISPOSE_PREVIOUS = 2;
+
+    /** Blending replacing the frame area, including alpha. */
+    static final int BLEND_SOURCE = 0;
+
+    /** Blending compositing over the frame area. */
+    static final int BLEND_OVER = 1;
+
+    /** PNG signature. */
+    static final byte[] PNG_SIGNATURE = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+
+    /** Decoder. */
+    private final Decoder decoder;
+
+    /** Canvas width. */
+    private final int width;
+
+    /** Canvas height. */
+    private final int height;
+
+    /** Canvas pixels. */
+    private final int[] canvas;
+
+    /** Canvas pixels saved for disposal to previous. */
+    private int[] saved = new int[0];
+
+    /** Frame being read, reused. */
+    private final SubFrame frame = new SubFrame();
+
+    /** Previous frame disposal. */
+    private int previousDispose = DISPOSE_NONE;
+
+    /** Previous frame x. */
+    private int previousX;
+
+    /** Previous frame y. */
+    private int previousY;
+
+    /** Previous frame width. */
+    private int previousWidth;
+
+    /** Previous frame height. */
+    private int previousHeight;
+
+    /** Number of frames read. */
+    private int count = 0;
+
+
+    /**
+     * Create a new animated image reader for the specified input stream.
+     *
+     * @param inputStream input stream, must not be null
+     * @throws IOException if an I/O error occurs or the image format is not supported
+     */
+    AnimatedImageReader(final InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new NullPointerException("inputStream must not be null");
+        }
+        BufferedInputStream in = new BufferedInputStream(inputStream);
+        in.mark(PNG_SIGNATURE.length);
+        byte[] signature = new byte[PNG_SIGNATURE.length];
+        int read = 0;
+        while (read < signature.length)
+        {
+            int n = in.read(signature, read, signature.length - read);
+            if (n < 0)
+            {
+                break;
+            }
+            read += n;
+        }
+        in.reset();
+        if (read >= 4 && signature[0] == 'G' && signature[1] == 'I' && signature[2] == 'F' && signature[3] == '8')
+        {
+            decoder = new Gif(in);
+        }
+        else if (read == PNG_SIGNATURE.length && Arrays.equals(signature, PNG_SIGNATURE))
+        {
+            decoder = new Apng(in);
+        }
+        else
+        {
+            throw new IOException("unsupported image format, expected GIF or PNG");
+        }
+        width = decoder.getWidth();
+        height = decoder.getHeight();
+        canvas = new int[width * height];
+    }
+
+
+    /**
+     * Return the canvas width.
+     *
+     * @return the canvas width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the canvas height.
+     *
+     * @return the canvas height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Return the number of times the animated image should play, or zero to play forever.
+     *
+     * @return the number of times the animated image should play, or zero to play forever
+     */
+    public int getLoopCount()
+    {
+        return decoder.getLoopCount();
+    }
+
+    /**
+     * Return the duration in milliseconds of the frame last read.
+     *
+     * @return the duration in milliseconds of the frame last read
+     */
+    public int getDelay()
+    {
+        return frame.delay;
+    }
+
+    /**
+     * Return the number of frames read so far.
+     *
+     * @return the number of frames read so far
+     */
+    public int getFrameCount()
+    {
+        return count;
+    }
+
+    /**
+     * Read, composite, and return the next frame, or null if there are no more frames.
+     *
+     * @return the next frame, or null if there are no more frames
+     * @throws IOException if an I/O error occurs
+     */
+    public PImage readFrame() throws IOException
+    {
+        long start = System.nanoTime();
+        if (!decoder.next(frame))
+        {
+            return null;
+        }
+        if (previousDispose == DISPOSE_BACKGROUND)
+        {
+            clear(previousX, previousY, previousWidth, previousHeight);
+        }
+        else if (previousDispose == DISPOSE_PREVIOUS)
+        {
+            copy(saved, previousX, previousY, previousWidth, previousHeight, false);
+        }
+        int dispose = frame.dispose;
+        if (dispose == DISPOSE_PREVIOUS)
+        {
+            if (count == 0)
+            {
+                dispose = DISPOSE_BACKGROUND;
+            }
+            else
+            {
+                if (saved.length < frame.width * frame.height)
+                {
+                    saved = new int[frame.width * frame.height];
+                }
+                copy(saved, frame.x, frame.y, frame.width, frame.height, true);
+            }
+        }
+        draw();
+        previousDispose = dispose;
+        previousX = frame.x;
+        previousY = frame.y;
+        previousWidth = frame.width;
+        previousHeight = frame.height;
+        count++;
+
+        PImage image = new PImage(width, height, PImage.ARGB);
+        System.arraycopy(canvas, 0, image.pixels, 0, canvas.length);
+        image.updatePixels();
+        FramesMetrics.getInstance().recordTransform("readAnimatedImage", System.nanoTime() - start);
+        return FramesMetrics.getInstance().track(image);
+    }
+
+    /**
+     * Read all the remaining frames.
+     *
+     * @return an animated image containing all the remaining frames
+     * @throws IOException if an I/O error occurs
+     */
+    public AnimatedImage readAll() throws IOException
+    {
+        List<PImage> frames = new ArrayList<PImage>();
+        int[] durations = new int[16];
+        for (PImage image = readFrame(); image != null; image = readFrame())
+        {
+            if (frames.size() == durations.length)
+            {
+                durations = Arrays.copyOf(durations, durations.length * 2);
+            }
+            durations[frames.size()] = getDelay();
+            frames.add(image);
+        }
+        return new AnimatedImage(frames, Arrays.copyOf(durations, frames.size()), getLoopCount());
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        decoder.close();
+    }
+
+    private void clear(final int x, final int y, final int w, final int h)
+    {
+        int x0 = Math.max(0, x);
+        int x1 = Math.min(width, x + w);
+        for (int row = Math.max(0, y), end = Math.min(height, y + h); row < end; row++)
+        {
+            if (x1 > x0)
+            {
+                Arrays.fill(canvas, row * width + x0, row * width + x1, 0);
+            }
+        }
+    }
+
+    private void copy(final int[] buffer, final int x, final int y, final int w, final int h, final boolean save)
+    {
+        int x0 = Math.max(0, x);
+        int x1 = Math.min(width, x + w);
+        for (int row = Math.max(0, y), end = Math.min(height, y + h); row < end; row++)
+        {
+            if (x1 > x0)
+            {
+                int offset = (row - y) * w + (x0 - x);
+                if (save)
+                {
+                    System.arraycopy(canvas, row * width + x0, buffer, offset, x1 - x0);
+                }
+                else
+                {
+                    System.arraycopy(buffer, offset, canvas, row * width + x0, x1 - x0);
+                }
+            }
+        }
+    }
+
+    private void draw()
+    {
+        int[] pixels = frame.pixels;
+        int x0 = Math.max(0, frame.x);
+        int x1 = Math.min(width, frame.x + frame.width);
+        for (int row = Math.max(0, frame.y), end = Math.min(height, frame.y + frame.height); row < end; row++)
+        {
+            int source = (row - frame.y) * frame.width + (x0 - frame.x);
+            int target = row * width + x0;
+            if (frame.blend == BLEND_SOURCE)
+            {
+                if (x1 > x0)
+                {
+                    System.arraycopy(pixels, source, canvas, target, x1 - x0);
+                }
+                continue;
+            }
+            for (int x = x0; x < x1; x++, source++, target++)
+            {
+                int pixel = pixels[source];
+                int alpha = pixel >>> 24;
+                if (alpha == 0xff)
+                {
+                    canvas[target] = pixel;
+                }
+                else if (alpha != 0)
+                {
+                    canvas[target] = over(pixel, canvas[target]);
+                }
+            }
+        }
+    }
+
+    private static int over(final int source, final int destination)
+    {
+        int sa = source >>> 24;
+        int da = ((destination >>> 24) * (255 - sa) + 127) / 255;
+        int a = sa + da;
+        if (a == 0)
+        {
+            return 0;
+        }
+        int r = ((((source >> 16) & 0xff) * sa) + (((destination >> 16) & 0xff) * da) + a / 2) / a;
+        int g = ((((source >> 8) & 0xff) * sa) + (((destination >> 8) & 0xff) * da) + a / 2) / a;
+        int b = (((source & 0xff) * sa) + ((destination & 0xff) * da) + a / 2) / a;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Frame as decoded, before compositing.
+     */
+    private static final class SubFrame
+    {
+        /** Pixels as ARGB, reused. */
+        private int[] pixels = new int[0];
+
+        /** Frame x offset on the canvas. */
+        private int x;
+
+        /** Frame y offset on the canvas. */
+        private int y;
+
+        /** Frame width. */
+        private int width;
+
+        /** Frame height. */
+        private int height;
+
+        /** Frame duration in milliseconds. */
+        private int delay;
+
+        /** Disposal. */
+        private int dispose;
+
+        /** Blending. */
+        private int blend;
+
+
+        /**
+         * Set the pixels of this frame from the specified image.
+         *
+         * @param image decoded image
+         */
+        void setPixels(final BufferedImage image)
+        {
+            width = image.getWidth();
+            height = image.getHeight();
+            if (pixels.length < width * height)
+            {
+                pixels = new int[width * height];
+            }
+            image.getRGB(0, 0, width, height, pixels, 0, width);
+        }
+    }
+
+    /**
+     * Format-specific frame decoder.
+     */
+    private interface Decoder extends Closeable
+    {
+
+        /**
+         * Return the canvas width.
+         *
+         * @return the canvas width
+         */
+        int getWidth();
+
+        /**
+         * Return the canvas height.
+         *
+         * @return the canvas height
+         */
+        int getHeight();
+
+        /**
+         * Return the number of times to play, or zero to play forever.
+         *
+         * @return the number of times to play, or zero to play forever
+         */
+        int getLoopCount();
+
+        /**
+         * Decode the next frame into the specified frame.
+         *
+         * @param frame frame to decode into
+         * @return true if a frame was decoded, false if there are no more frames
+         * @throws IOException if an I/O error occurs
+         */
+        boolean next(SubFrame frame) throws IOException;
+    }
+
+    /**
+     * GIF frame decoder, using <code>javax.imageio</code>.
+     */
+    private static final class Gif implements Decoder
+    {
+        /** GIF stream metadata format name. */
+        private static final String STREAM_FORMAT = "javax_imageio_gif_stream_1.0";
+
+        /** GIF image metadata format name. */
+        private static final String IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+
+        /** Input stream. */
+        private final InputStream in;
+
+        /** Image input stream. */
+        private final ImageInputStream stream;
+
+        /** Image reader. */
+        private final ImageReader reader;
+
+        /** Index of the next frame. */
+        private int index = 0;
+
+        /** Metadata for the next frame, or null if there are no more frames. */
+        private IIOMetadataNode pending;
+
+        /** Canvas width. */
+        private final int width;
+
+        /** Canvas height. */
+        private final int height;
+
+        /** Number of times to play, or zero to play forever. */
+        private final int loopCount;
+
+
+        /**
+         * Create a new GIF frame decoder.
+         *
+         * @param in input stream
+         * @throws IOException if an I/O error occurs
+         */
+        Gif(final InputStream in) throws IOException
+        {
+            Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("gif");
+            if (!readers.hasNext())
+            {
+                throw new IOException("no GIF image reader available");
+            }
+            this.in = in;
+            stream = ImageIO.createImageInputStream(in);
+            reader = readers.next();
+            try
+            {
+                reader.setInput(stream, true, false);
+
+                IIOMetadataNode screen = child((IIOMetadataNode) reader.getStreamMetadata().getAsTree(STREAM_FORMAT),
+                                               "LogicalScreenDescriptor");
+                pending = metadata(0);
+                IIOMetadataNode descriptor = pending == null ? null : child(pending, "ImageDescriptor");
+                width = Math.max(intAttribute(screen, "logicalScreenWidth", 0), intAttribute(descriptor, "imageWidth", 1));
+                height = Math.max(intAttribute(screen, "logicalScreenHeight", 0), intAttribute(descriptor, "imageHeight", 1));
+                loopCount = loopCount(pending);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                close();
+                throw e;
+            }
+        }
+
+
+        @Override
+        public int getWidth()
+        {
+            return width;
+        }
+
+        @Override
+        public int getHeight()
+        {
+            return height;
+        }
+
+        @Override
+        public int getLoopCount()
+        {
+            return loopCount;
+        }
+
+        @Override
+        public boolean next(final SubFrame frame) throws IOException
+        {
+            if (pending == null)
+            {
+                return false;
+            }
+            IIOMetadataNode descriptor = child(pending, "ImageDescriptor");
+            IIOMetadataNode control = child(pending, "GraphicControlExtension");
+            frame.setPixels(reader.read(index));
+            frame.x = intAttribute(descriptor, "imageLeftPosition", 0);
+            frame.y = intAttribute(descriptor, "imageTopPosition", 0);
+            frame.blend = BLEND_OVER;
+
+            // browsers play delays of 0 and 1 centiseconds at 100 ms
+            int delay = intAttribute(control, "delayTime", 0);
+            frame.delay = delay <= 1 ? 100 : delay * 10;
+            String disposal = control == null ? "none" : control.getAttribute("disposalMethod");
+            if ("restoreToBackgroundColor".equals(disposal))
+            {
+                frame.dispose = DISPOSE_BACKGROUND;
+            }
+            else if ("restoreToPrevious".equals(disposal))
+            {
+                frame.dispose = DISPOSE_PREVIOUS;
+            }
+            else
+            {
+                frame.dispose = DISPOSE_NONE;
+            }
+            index++;
+            pending = metadata(index);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            reader.dispose();
+            try
+            {
+                stream.close();
+            }
+            finally
+            {
+                // closing an image input stream does not close the stream it wraps
+                in.close();
+            }
+        }
+
+        /**
+         * Return the metadata for the specified frame, or null if there is no such frame.
+         *
+         * @param frame frame index
+         * @return the metadata for the specified frame, or null if there is no such frame
+         * @throws IOException if an I/O error occurs
+         */
+        private IIOMetadataNode metadata(final int frame) throws IOException
+        {
+            try
+            {
+                IIOMetadata metadata = reader.getImageMetadata(frame);
+                return (IIOMetadataNode) metadata.getAsTree(IMAGE_FORMAT);
+            }
+            catch (IndexOutOfBoundsException e)
+            {
+                return null;
+            }
+        }
+
+        /**
+         * Return the number of times to play from the <code>NETSCAPE2.0</code> application
+         * extension in the specified metadata, if any.
+         *
+         * @param metadata image metadata
+         * @return the number of times to play, or zero to play forever
+         */
+        private static int loopCount(final IIOMetadataNode metadata)
+        {
+            IIOMetadataNode extensions = metadata == null ? null : child(metadata, "ApplicationExtensions");
+            if (extensions != null)
+            {
+                for (Node node = extensions.getFirstChild(); node != null; node = node.getNextSibling())
+                {
+                    IIOMetadataNode extension = (IIOMetadataNode) node;
+                    if ("NETSCAPE".equals(extension.getAttribute("applicationID"))
+                        && extension.getUserObject() instanceof byte[])
+                    {
+                        byte[] bytes = (byte[]) extension.getUserObject();
+                        if (bytes.length >= 3 && bytes[0] == 1)
+                        {
+                            int repeat = (bytes[1] & 0xff) | ((bytes[2] & 0xff) << 8);
+                            return repeat == 0 ? 0 : repeat + 1;
+                        }
+                    }
+                }
+            }
+            return 1;
+        }
+
+        private static IIOMetadataNode child(final IIOMetadataNode parent, final String name)
+        {
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+            {
+                if (name.equals(node.getNodeName()))
+                {
+                    return (IIOMetadataNode) node;
+                }
+            }
+            return null;
+        }
+
+        private static int intAttribute(final IIOMetadataNode node, final String name, final int defaultValue)
+        {
+            if (node == null || !node.hasAttribute(name))
+            {
+                return defaultValue;
+            }
+            return Integer.parseInt(node.getAttribute(name));
+        }
+    }
+
+    /**
+     * APNG frame decoder, parsing PNG chunks directly.
+     */
+    private static final class Apng implements Decoder
+    {
+        /** Input stream. */
+        private final DataInputStream in;
+
+        /** Chunk CRC. */
+        private final CRC32 crc = new CRC32();
+
+        /** <code>IHDR</code> chunk data. */
+        private byte[] header;
+
+        /** Ancillary chunks preceding the image data, replayed into each frame. */
+        private final ByteArrayOutputStream shared = new ByteArrayOutputStream();
+
+        /** Compressed image data of the frame being read. */
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        /** <code>fcTL</code> chunk data of the next frame, or null if there are no more frames. */
+        private byte[] pending;
+
+        /** Type of the chunk last read. */
+        private String type;
+
+        /** Data of the chunk last read. */
+        private byte[] body;
+
+        /** Canvas width. */
+        private int width;
+
+        /** Canvas height. */
+        private int height;
+
+        /** Number of times to play, or zero to play forever. */
+        private int loopCount = 1;
+
+
+        /**
+         * Create a new APNG frame decoder.
+         *
+         * @param input input stream
+         * @throws IOException if an I/O error occurs
+         */
+        Apng(final InputStream input) throws IOException
+        {
+            in = new DataInputStream(input);
+            byte[] signature = new byte[PNG_SIGNATURE.length];
+            in.readFully(signature);
+
+            boolean animated = false;
+            while (pending == null)
+            {
+                readChunk();
+                if ("IHDR".equals(type))
+                {
+                    header = body;
+                    width = readInt(body, 0);
+                    height = readInt(body, 4);
+                }
+                else if ("acTL".equals(type))
+                {
+                    animated = true;
+                    loopCount = readInt(body, 4);
+                }
+                else if ("fcTL".equals(type))
+                {
+                    pending = body;
+                }
+                else if ("IDAT".equals(type))
+                {
+                    // a default image not preceded by fcTL is not part of the animation
+                    if (!animated)
+                    {
+                        pending = frameControl(width, height);
+                        data.write(body, 0, body.length);
+                    }
+                }
+                else if ("IEND".equals(type))
+                {
+                    break;
+                }
+                else if (header != null && !"fdAT".equals(type))
+                {
+                    writeChunk(new DataOutputStream(shared), type, body, crc);
+                }
+            }
+            if (header == null)
+            {
+                throw new IOException("PNG image has no IHDR chunk");
+            }
+        }
+
+
+        @Override
+        public int getWidth()
+        {
+            return width;
+        }
+
+        @Override
+        public int getHeight()
+        {
+            return height;
+        }
+
+        @Override
+        public int getLoopCount()
+        {
+            return loopCount;
+        }
+
+        @Override
+        public boolean next(final SubFrame frame) throws IOException
+        {
+            if (pending == null)
+            {
+                return false;
+            }
+            byte[] control = pending;
+            pending = null;
+            while (true)
+            {
+                readChunk();
+                if ("IDAT".equals(type))
+                {
+                    data.write(body, 0, body.length);
+                }
+                else if ("fdAT".equals(type))
+                {
+                    data.write(body, 4, body.length - 4);
+                }
+                else if ("fcTL".equals(type))
+                {
+                    pending = body;
+                    break;
+                }
+                else if ("IEND".equals(type))
+                {
+                    break;
+                }
+            }
+
+            int frameWidth = readInt(control, 4);
+            int frameHeight = readInt(control, 8);
+            frame.setPixels(decode(frameWidth, frameHeight));
+            frame.x = readInt(control, 12);
+            frame.y = readInt(control, 16);
+            int numerator = ((control[20] & 0xff) << 8) | (control[21] & 0xff);
+            int denominator = ((control[22] & 0xff) << 8) | (control[23] & 0xff);
+            frame.delay = Math.max(1, numerator * 1000 / (denominator == 0 ? 100 : denominator));
+            frame.dispose = control[24];
+            frame.blend = control[25];
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+
+        /**
+         * Decode the compressed image data of the frame being read as a standalone PNG image.
+         *
+         * @param frameWidth frame width
+         * @param frameHeight frame height
+         * @return the decoded frame image
+         * @throws IOException if an I/O error occurs
+         */
+        private BufferedImage decode(final int frameWidth, final int frameHeight) throws IOException
+        {
+            byte[] frameHeader = header.clone();
+            writeInt(frameHeader, 0, frameWidth);
+            writeInt(frameHeader, 4, frameHeight);
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream(data.size() + shared.size() + 64);
+            DataOutputStream out = new DataOutputStream(png);
+            out.write(PNG_SIGNATURE);
+            writeChunk(out, "IHDR", frameHeader, crc);
+            shared.writeTo(out);
+            writeChunk(out, "IDAT", data.toByteArray(), crc);
+            writeChunk(out, "IEND", new byte[0], crc);
+            data.reset();
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+            if (image == null)
+            {
+                throw new IOException("could not decode APNG frame");
+            }
+            return image;
+        }
+
+        /**
+         * Read the next chunk, verifying its CRC.
+         *
+         * @throws IOException if an I/O error occurs or the CRC does not match
+         */
+        private void readChunk() throws IOException
+        {
+            int length = in.readInt();
+            if (length < 0)
+            {
+                throw new IOException("invalid PNG chunk length " + length);
+            }
+            byte[] typeBytes = new byte[4];
+            in.readFully(typeBytes);
+            body = new byte[length];
+            in.readFully(body);
+            crc.reset();
+            crc.update(typeBytes);
+            crc.update(body);
+            type = new String(typeBytes, StandardCharsets.US_ASCII);
+            if ((int) crc.getValue() != in.readInt())
+            {
+                throw new IOException("CRC mismatch in PNG chunk " + type);
+            }
+        }
+
+        private static byte[] frameControl(final int width, final int height)
+        {
+            byte[] control = new byte[26];
+            writeInt(control, 4, width);
+            writeInt(control, 8, height);
+            return control;
+        }
+    }
+
+    /**
+     * Write a PNG chunk with the specified type and data to the specified output stream.
+     *
+     * @param out output stream
+     * @param type chunk type
+     * @param data chunk data
+     * @param crc CRC to use
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeChunk(final DataOutputStream out, final String type, final byte[] data, final CRC32 crc) throws IOException
+    {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Read a big-endian int from the specified bytes.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @return the big-endian int at the specified offset
+     */
+    static int readInt(final byte[] bytes, final int offset)
+    {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+            | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Write a big-endian int to the specified bytes.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @param value value
+     */
+    static void writeInt(final byte[] bytes, final int offset, final int value)
+    {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,432 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.zip.CRC32;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+
+import javax.imageio.stream.ImageOutputStream;
+
+import org.w3c.dom.Node;
+
+import processing.core.PImage;
+
+/**
+ * Streaming writer for animated GIF and APNG images.
+ *
+ * <p>
+ * Frames are encoded and written one at a time, so frame lists that produce their
+ * frames lazily are never held in memory all at once.  All frames must be the same size.
+ * GIF frames are written with an exact palette when they have at most 256 distinct colors,
+ * counting pixels less than half opaque as a single transparent color, and otherwise with
+ * color precision reduced until they fit.  APNG frames are written losslessly.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class AnimatedImageWriter
+{
+    /** GIF image metadata format name. */
+    private static final String GIF_IMAGE_FORMAT = "javax_imageio_gif_image_1.0";
+
+    /** Animated image format. */
+    private final Format format;
+
+
+    /**
+     * Create a new animated image writer for the specified format.
+     *
+     * @param format animated image format, must not be null
+     */
+    AnimatedImageWriter(final Format format)
+    {
+        if (format == null)
+        {
+            throw new NullPointerException("format must not be null");
+        }
+        this.format = format;
+    }
+
+
+    /**
+     * Return the animated image format for this writer.
+     *
+     * @return the animated image format for this writer
+     */
+    public Format getFormat()
+    {
+        return format;
+    }
+
+    /**
+     * Write the specified animated image to the specified file.
+     *
+     * @param image animated image, must not be null
+     * @param file file, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final AnimatedImage image, final File file) throws IOException
+    {
+        if (image == null)
+        {
+            throw new NullPointerException("image must not be null");
+        }
+        write(image.getFrames(), image.getDurations(), image.getLoopCount(), file);
+    }
+
+    /**
+     * Write the specified frames to the specified file.
+     *
+     * @param frames list of frame images, must not be null or empty
+     * @param durations frame durations in milliseconds, must not be null and must be the
+     *    same length as <code>frames</code>
+     * @param loopCount number of times to play, or zero to play forever
+     * @param file file, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final List<PImage> frames, final int[] durations, final int loopCount, final File file)
+        throws IOException
+    {
+        if (file == null)
+        {
+            throw new NullPointerException("file must not be null");
+        }
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file)))
+        {
+            write(frames, durations, loopCount, outputStream);
+        }
+    }
+
+    /**
+     * Write the specified frames to the specified output stream.  The output stream
+     * is flushed but not closed.
+     *
+     * @param frames list of frame images, must not be null or empty
+     * @param durations frame durations in milliseconds, must not be null and must be the
+     *    same length as <code>frames</code>
+     * @param loopCount number of times to play, or zero to play forever
+     * @param outputStream output stream, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final List<PImage> frames, final int[] durations, final int loopCount,
+                      final OutputStream outputStream) throws IOException
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        if (durations == null)
+        {
+            throw new NullPointerException("durations must not be null");
+        }
+        if (durations.length != frames.size())
+        {
+            throw new IllegalArgumentException("durations must be the same length as frames");
+        }
+        if (loopCount < 0)
+        {
+            throw new IllegalArgumentException("loopCount must be at least 0");
+        }
+        if (outputStream == null)
+        {
+            throw new NullPointerException("outputStream must not be null");
+        }
+        long start = System.nanoTime();
+        if (format == Format.GIF)
+        {
+            writeGif(frames, durations, loopCount, outputStream);
+        }
+        else
+        {
+            writeApng(frames, durations, loopCount, outputStream);
+        }
+        FramesMetrics.getInstance().recordTransform("writeAnimatedImage", System.nanoTime() - start);
+    }
+
+    private static void writeGif(final List<PImage> frames, final int[] durations, final int loopCount,
+                                 final OutputStream outputStream) throws IOException
+    {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("gif");
+        if (!writers.hasNext())
+        {
+            throw new IOException("no GIF image writer available");
+        }
+        ImageWriter writer = writers.next();
+        ImageOutputStream out = ImageIO.createImageOutputStream(outputStream);
+        try
+        {
+            writer.setOutput(out);
+            writer.prepareWriteSequence(null);
+            PImage first = frames.get(0);
+            for (int i = 0; i < frames.size(); i++)
+            {
+                PImage frame = checkSize(frames.get(i), first);
+                BufferedImage image = indexed(frame);
+                IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+                int transparentIndex = colorModel.getTransparentPixel();
+
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                IIOMetadata metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+                IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(GIF_IMAGE_FORMAT);
+
+                // the default metadata does not carry the image's own palette
+                IIOMetadataNode colorTable = child(root, "LocalColorTable");
+                while (colorTable.hasChildNodes())
+                {
+                    colorTable.removeChild(colorTable.getFirstChild());
+                }
+                int size = 2;
+                while (size < colorModel.getMapSize())
+                {
+                    size *= 2;
+                }
+                colorTable.setAttribute("sizeOfLocalColorTable", Integer.toString(size));
+                colorTable.setAttribute("sortFlag", "FALSE");
+                for (int index = 0; index < size; index++)
+                {
+                    int color = index < colorModel.getMapSize() ? colorModel.getRGB(index) : 0;
+                    IIOMetadataNode entry = new IIOMetadataNode("ColorTableEntry");
+                    entry.setAttribute("index", Integer.toString(index));
+                    entry.setAttribute("red", Integer.toString((color >> 16) & 0xff));
+                    entry.setAttribute("green", Integer.toString((color >> 8) & 0xff));
+                    entry.setAttribute("blue", Integer.toString(color & 0xff));
+                    colorTable.appendChild(entry);
+                }
+
+                // readers play delays below 2 centiseconds at 100 ms
+                IIOMetadataNode control = child(root, "GraphicControlExtension");
+                control.setAttribute("disposalMethod", "restoreToBackgroundColor");
+                control.setAttribute("userInputFlag", "FALSE");
+                control.setAttribute("transparentColorFlag", transparentIndex < 0 ? "FALSE" : "TRUE");
+                control.setAttribute("transparentColorIndex", Integer.toString(Math.max(0, transparentIndex)));
+                control.setAttribute("delayTime", Integer.toString(Math.max(2, (durations[i] + 5) / 10)));
+
+                if (i == 0 && loopCount != 1)
+                {
+                    int repeat = loopCount == 0 ? 0 : Math.min(0xffff, loopCount - 1);
+                    IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+                    extension.setAttribute("applicationID", "NETSCAPE");
+                    extension.setAttribute("authenticationCode", "2.0");
+                    extension.setUserObject(new byte[] { 1, (byte) (repeat & 0xff), (byte) ((repeat >> 8) & 0xff) });
+                    child(root, "ApplicationExtensions").appendChild(extension);
+                }
+                metadata.setFromTree(GIF_IMAGE_FORMAT, root);
+                writer.writeToSequence(new IIOImage(image, null, metadata), param);
+            }
+            writer.endWriteSequence();
+        }
+        finally
+        {
+            writer.dispose();
+            out.close();
+        }
+        outputStream.flush();
+    }
+
+    private static void writeApng(final List<PImage> frames, final int[] durations, final int loopCount,
+                                  final OutputStream outputStream) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.write(AnimatedImageReader.PNG_SIGNATURE);
+        PImage first = frames.get(0);
+        int sequence = 0;
+        for (int i = 0; i < frames.size(); i++)
+        {
+            PImage frame = checkSize(frames.get(i), first);
+            BufferedImage image = new BufferedImage(frame.width, frame.height, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(0, 0, frame.width, frame.height, Pixels.argb(frame), 0, frame.width);
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", encoded);
+            byte[] png = encoded.toByteArray();
+
+            if (i == 0)
+            {
+                AnimatedImageReader.writeChunk(out, "IHDR", chunk(png, "IHDR"), crc);
+                byte[] animationControl = new byte[8];
+                AnimatedImageReader.writeInt(animationControl, 0, frames.size());
+                AnimatedImageReader.writeInt(animationControl, 4, loopCount);
+                AnimatedImageReader.writeChunk(out, "acTL", animationControl, crc);
+            }
+
+            int numerator = durations[i];
+            int denominator = 1000;
+            if (numerator > 0xffff)
+            {
+                numerator = Math.min(0xffff, numerator / 10);
+                denominator = 100;
+            }
+            byte[] frameControl = new byte[26];
+            AnimatedImageReader.writeInt(frameControl, 0, sequence++);
+            AnimatedImageReader.writeInt(frameControl, 4, frame.width);
+            AnimatedImageReader.writeInt(frameControl, 8, frame.height);
+            frameControl[20] = (byte) (numerator >> 8);
+            frameControl[21] = (byte) numerator;
+            frameControl[22] = (byte) (denominator >> 8);
+            frameControl[23] = (byte) denominator;
+            frameControl[24] = (byte) AnimatedImageReader.DISPOSE_NONE;
+            frameControl[25] = (byte) AnimatedImageReader.BLEND_SOURCE;
+            AnimatedImageReader.writeChunk(out, "fcTL", frameControl, crc);
+
+            byte[] data = chunk(png, "IDAT");
+            if (i == 0)
+            {
+                AnimatedImageReader.writeChunk(out, "IDAT", data, crc);
+            }
+            else
+            {
+                byte[] frameData = new byte[data.length + 4];
+                AnimatedImageReader.writeInt(frameData, 0, sequence++);
+                System.arraycopy(data, 0, frameData, 4, data.length);
+                AnimatedImageReader.writeChunk(out, "fdAT", frameData, crc);
+            }
+        }
+        AnimatedImageReader.writeChunk(out, "IEND", new byte[0], crc);
+        out.flush();
+    }
+
+    /**
+     * Return the concatenated data of all the chunks of the specified type in the specified PNG image.
+     *
+     * @param png PNG image
+     * @param type chunk type
+     * @return the concatenated data of all the chunks of the specified type
+     */
+    private static byte[] chunk(final byte[] png, final String type)
+    {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int offset = AnimatedImageReader.PNG_SIGNATURE.length;
+        while (offset + 8 <= png.length)
+        {
+            int length = AnimatedImageReader.readInt(png, offset);
+            String chunkType = new String(png, offset + 4, 4, StandardCharsets.US_ASCII);
+            if (type.equals(chunkType))
+            {
+                data.write(png, offset + 8, length);
+            }
+            offset += 12 + length;
+        }
+        return data.toByteArray();
+    }
+
+    /**
+     * Convert the specified frame image to an indexed image with at most 256 colors.
+     *
+     * @param frame frame image
+     * @return the specified frame image converted to an indexed image
+     */
+    private static BufferedImage indexed(final PImage frame)
+    {
+        int[] argb = Pixels.argb(frame);
+        int[] colors = new int[argb.length];
+        int[] palette = null;
+        for (int shift = 0; palette == null; shift++)
+        {
+            int channel = (0xff << shift) & 0xff;
+            int mask = 0xff000000 | (channel << 16) | (channel << 8) | channel;
+            for (int i = 0; i < argb.length; i++)
+            {
+                // transparent pixels map to 0, opaque colors always have alpha 0xff
+                colors[i] = (argb[i] >>> 24) < 0x80 ? 0 : (argb[i] | 0xff000000) & mask;
+            }
+            palette = Pixels.palette(colors);
+        }
+        int transparentIndex = Arrays.binarySearch(palette, 0);
+        IndexColorModel colorModel = new IndexColorModel(8, palette.length, palette, 0, true,
+                                                         Math.max(-1, transparentIndex), DataBuffer.TYPE_BYTE);
+        BufferedImage image = new BufferedImage(frame.width, frame.height, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        byte[] indices = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < colors.length; i++)
+        {
+            indices[i] = (byte) Arrays.binarySearch(palette, colors[i]);
+        }
+        return image;
+    }
+
+    private static PImage checkSize(final PImage frame, final PImage first)
+    {
+        if (frame.width != first.width || frame.height != first.height)
+        {
+            throw new IllegalArgumentException("frames must all be the same size");
+        }
+        return frame;
+    }
+
+    private static IIOMetadataNode child(final IIOMetadataNode parent, final String name)
+    {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (name.equals(node.getNodeName()))
+            {
+                return (IIOMetadataNode) node;
+            }
+        }
+        IIOMetadataNode node = new IIOMetadataNode(name);
+        parent.appendChild(node);
+        return node;
+    }
+
+    /**
+     * Animated image format.
+     */
+    public enum Format
+    {
+        /** Animated GIF. */
+        GIF,
+
+        /** Animated PNG. */
+        APNG;
+    }
+}
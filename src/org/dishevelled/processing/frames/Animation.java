@@ -34,7 +34,8 @@ public interface Animation
     /**
      * Advance this animation one frame.
      *
-     * @return true if consumers of this animation should schedule a repaint
+     * @return true if consumers of this animation should schedule a repaint, that is,
+     *    if the current frame changed
      */
     boolean advance();
 
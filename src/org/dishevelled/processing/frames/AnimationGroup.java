@@ -0,0 +1,363 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import processing.core.PImage;
+
+/**
+ * Group of many animated entities sharing a small number of frame sequences.
+ *
+ * <p>
+ * Entity state is stored in primitive arrays indexed by entity id rather than
+ * in one animation object per entity, so that advancing every entity is a single
+ * tight loop over those arrays, optionally split across cores with fork-join.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class AnimationGroup
+{
+    /** Minimum number of entities per fork-join task. */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    /** Frame sequences, indexed by sequence id. */
+    private PImage[][] sequences = new PImage[4][];
+
+    /** True if the frame sequence loops, indexed by sequence id. */
+    private boolean[] loopedSequences = new boolean[4];
+
+    /** Number of frame sequences. */
+    private int sequenceCount = 0;
+
+    /** Sequence id, indexed by entity id, or <code>-1</code> if removed. */
+    private int[] sequence = new int[64];
+
+    /** Cursor, indexed by entity id. */
+    private int[] cursor = new int[64];
+
+    /** Frame sequence length, indexed by entity id. */
+    private int[] length = new int[64];
+
+    /** Cursor to wrap to after the last frame, indexed by entity id. */
+    private int[] wrap = new int[64];
+
+    /** Number of entity ids allocated. */
+    private int size = 0;
+
+    /** Removed entity ids available for reuse. */
+    private int[] free = new int[16];
+
+    /** Number of removed entity ids available for reuse. */
+    private int freeCount = 0;
+
+
+    /**
+     * Create a new empty animation group.
+     */
+    AnimationGroup()
+    {
+        // empty
+    }
+
+
+    /**
+     * Add the specified list of frames as a new frame sequence and return its sequence id.
+     *
+     * @param frames list of frames, must not be null or empty
+     * @param looped true if the frame sequence loops
+     * @return the sequence id of the new frame sequence
+     */
+    public int addSequence(final List<PImage> frames, final boolean looped)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        if (sequenceCount == sequences.length)
+        {
+            sequences = Arrays.copyOf(sequences, sequenceCount * 2);
+            loopedSequences = Arrays.copyOf(loopedSequences, sequenceCount * 2);
+        }
+        sequences[sequenceCount] = frames.toArray(new PImage[frames.size()]);
+        loopedSequences[sequenceCount] = looped;
+        return sequenceCount++;
+    }
+
+    /**
+     * Return the number of frame sequences in this animation group.
+     *
+     * @return the number of frame sequences in this animation group
+     */
+    public int getSequenceCount()
+    {
+        return sequenceCount;
+    }
+
+    /**
+     * Add a new entity playing the specified frame sequence from its first frame and return its entity id.
+     * Entity ids of removed entities may be reused.
+     *
+     * @param sequenceId sequence id
+     * @return the entity id of the new entity
+     */
+    public int add(final int sequenceId)
+    {
+        checkSequence(sequenceId);
+        int entity;
+        if (freeCount > 0)
+        {
+            entity = free[--freeCount];
+        }
+        else
+        {
+            if (size == sequence.length)
+            {
+                int capacity = size * 2;
+                sequence = Arrays.copyOf(sequence, capacity);
+                cursor = Arrays.copyOf(cursor, capacity);
+                length = Arrays.copyOf(length, capacity);
+                wrap = Arrays.copyOf(wrap, capacity);
+            }
+            entity = size++;
+        }
+        assign(entity, sequenceId);
+        return entity;
+    }
+
+    /**
+     * Remove the specified entity.
+     *
+     * @param entity entity id
+     */
+    public void remove(final int entity)
+    {
+        checkEntity(entity);
+        sequence[entity] = -1;
+        cursor[entity] = 0;
+        length[entity] = 1;
+        wrap[entity] = 0;
+        if (freeCount == free.length)
+        {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = entity;
+    }
+
+    /**
+     * Return the number of entities in this animation group.
+     *
+     * @return the number of entities in this animation group
+     */
+    public int size()
+    {
+        return size - freeCount;
+    }
+
+    /**
+     * Play the specified frame sequence for the specified entity from its first frame.
+     *
+     * @param entity entity id
+     * @param sequenceId sequence id
+     */
+    public void play(final int entity, final int sequenceId)
+    {
+        checkEntity(entity);
+        checkSequence(sequenceId);
+        assign(entity, sequenceId);
+    }
+
+    private void assign(final int entity, final int sequenceId)
+    {
+        sequence[entity] = sequenceId;
+        cursor[entity] = 0;
+        length[entity] = sequences[sequenceId].length;
+        wrap[entity] = loopedSequences[sequenceId] ? 0 : sequences[sequenceId].length - 1;
+    }
+
+    /**
+     * Reset the specified entity to the first frame of its frame sequence.
+     *
+     * @param entity entity id
+     */
+    public void reset(final int entity)
+    {
+        checkEntity(entity);
+        cursor[entity] = 0;
+    }
+
+    /**
+     * Return the sequence id for the specified entity.
+     *
+     * @param entity entity id
+     * @return the sequence id for the specified entity
+     */
+    public int getSequence(final int entity)
+    {
+        checkEntity(entity);
+        return sequence[entity];
+    }
+
+    /**
+     * Return the index of the current frame for the specified entity.
+     *
+     * @param entity entity id
+     * @return the index of the current frame for the specified entity
+     */
+    public int getIndex(final int entity)
+    {
+        checkEntity(entity);
+        return cursor[entity];
+    }
+
+    /**
+     * Return the current frame for the specified entity.
+     * The current frame will not be null.
+     *
+     * @param entity entity id
+     * @return the current frame for the specified entity
+     */
+    public PImage getCurrentFrame(final int entity)
+    {
+        checkEntity(entity);
+        return sequences[sequence[entity]][cursor[entity]];
+    }
+
+    /**
+     * Advance the specified entity one frame.
+     *
+     * @param entity entity id
+     */
+    public void advance(final int entity)
+    {
+        checkEntity(entity);
+        advance(entity, entity + 1);
+    }
+
+    /**
+     * Advance all the entities in this animation group one frame.
+     */
+    public void advance()
+    {
+        FramesMetrics.getInstance().advanced(size);
+        advance(0, size);
+    }
+
+    /**
+     * Advance all the entities in this animation group one frame, splitting
+     * the work across cores with the common fork-join pool.
+     */
+    public void advanceParallel()
+    {
+        FramesMetrics.getInstance().advanced(size);
+        if (size < PARALLEL_THRESHOLD)
+        {
+            advance(0, size);
+        }
+        else
+        {
+            ForkJoinPool.commonPool().invoke(new AdvanceTask(0, size));
+        }
+    }
+
+    private void advance(final int from, final int to)
+    {
+        final int[] cursor = this.cursor;
+        final int[] length = this.length;
+        final int[] wrap = this.wrap;
+        for (int i = from; i < to; i++)
+        {
+            int c = cursor[i] + 1;
+            cursor[i] = (c == length[i]) ? wrap[i] : c;
+        }
+    }
+
+    private void checkSequence(final int sequenceId)
+    {
+        if (sequenceId < 0 || sequenceId >= sequenceCount)
+        {
+            throw new IllegalArgumentException("no such sequence " + sequenceId);
+        }
+    }
+
+    private void checkEntity(final int entity)
+    {
+        if (entity < 0 || entity >= size || sequence[entity] < 0)
+        {
+            throw new IllegalArgumentException("no such entity " + entity);
+        }
+    }
+
+    /**
+     * Fork-join task that advances a range of entities.
+     */
+    private final class AdvanceTask extends RecursiveAction
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** First entity id, inclusive. */
+        private final int from;
+
+        /** Last entity id, exclusive. */
+        private final int to;
+
+
+        /**
+         * Create a new advance task for the specified range of entities.
+         *
+         * @param from first entity id, inclusive
+         * @param to last entity id, exclusive
+         */
+        AdvanceTask(final int from, final int to)
+        {
+            this.from = from;
+            this.to = to;
+        }
+
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= PARALLEL_THRESHOLD)
+            {
+                advance(from, to);
+            }
+            else
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AdvanceTask(from, middle), new AdvanceTask(middle, to));
+            }
+        }
+    }
+}
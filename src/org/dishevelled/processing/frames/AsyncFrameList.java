@@ -0,0 +1,309 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import processing.core.PImage;
+
+/**
+ * List of frame images loaded asynchronously.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class AsyncFrameList
+{
+    /** Frame images, null until loaded. */
+    private final PImage[] images;
+
+    /** Number of frame images loaded. */
+    private int loaded = 0;
+
+    /** Number of frame images loaded in order from the first frame image. */
+    private volatile int available = 0;
+
+    /** True if loading has been cancelled. */
+    private boolean cancelled = false;
+
+    /** First failure while loading, if any. */
+    private RuntimeException failure;
+
+    /** Pending load tasks. */
+    private final List<Future<?>> tasks;
+
+
+    /**
+     * Create a new asynchronous frame list of the specified size.
+     *
+     * @param size size, must be at least one
+     */
+    AsyncFrameList(final int size)
+    {
+        if (size < 1)
+        {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        images = new PImage[size];
+        tasks = new ArrayList<Future<?>>(size);
+    }
+
+
+    /**
+     * Add the specified pending load task.
+     *
+     * @param task task to add
+     */
+    synchronized void addTask(final Future<?> task)
+    {
+        if (cancelled)
+        {
+            task.cancel(true);
+        }
+        tasks.add(task);
+    }
+
+    /**
+     * Set the frame image at the specified index.
+     *
+     * @param index index
+     * @param image frame image, must not be null
+     */
+    synchronized void set(final int index, final PImage image)
+    {
+        if (cancelled || images[index] != null)
+        {
+            return;
+        }
+        images[index] = image;
+        loaded++;
+        int a = available;
+        while (a < images.length && images[a] != null)
+        {
+            a++;
+        }
+        available = a;
+        notifyAll();
+    }
+
+    /**
+     * Record a failure loading the frame image at the specified index.
+     *
+     * @param index index
+     * @param cause cause
+     */
+    synchronized void fail(final int index, final RuntimeException cause)
+    {
+        if (failure == null)
+        {
+            failure = cause;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Return the frame image at the specified index without blocking.  Callers
+     * must first check that <code>index</code> is less than the number of available frames.
+     *
+     * @param index index
+     * @return the frame image at the specified index
+     */
+    PImage frame(final int index)
+    {
+        return images[index];
+    }
+
+    /**
+     * Return the total number of frame images in this list.
+     *
+     * @return the total number of frame images in this list
+     */
+    public int size()
+    {
+        return images.length;
+    }
+
+    /**
+     * Return the number of frame images loaded so far, in any order.
+     *
+     * @return the number of frame images loaded so far
+     */
+    public synchronized int getLoadedCount()
+    {
+        return loaded;
+    }
+
+    /**
+     * Return the number of frame images loaded so far in order from the first
+     * frame image.  Frame images at indices less than this count may be used without blocking.
+     *
+     * @return the number of frame images loaded so far in order from the first frame image
+     */
+    public int getAvailableCount()
+    {
+        return available;
+    }
+
+    /**
+     * Return the loading progress, from <code>0.0f</code> to <code>1.0f</code>.
+     *
+     * @return the loading progress
+     */
+    public synchronized float getProgress()
+    {
+        return loaded / (float) images.length;
+    }
+
+    /**
+     * Return true if loading has completed, failed, or been cancelled.
+     *
+     * @return true if loading has completed, failed, or been cancelled
+     */
+    public synchronized boolean isDone()
+    {
+        return loaded == images.length || failure != null || cancelled;
+    }
+
+    /**
+     * Return true if the frame image at the specified index has been loaded.
+     *
+     * @param index index
+     * @return true if the frame image at the specified index has been loaded
+     */
+    public synchronized boolean isLoaded(final int index)
+    {
+        return images[index] != null;
+    }
+
+    /**
+     * Return the frame image at the specified index, or null if it has not yet been loaded.
+     *
+     * @param index index
+     * @return the frame image at the specified index, or null if it has not yet been loaded
+     */
+    public synchronized PImage get(final int index)
+    {
+        return images[index];
+    }
+
+    /**
+     * Wait for the frame image at the specified index to be loaded and return it.
+     *
+     * @param index index
+     * @return the frame image at the specified index
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if loading failed or was cancelled
+     */
+    public synchronized PImage await(final int index) throws InterruptedException
+    {
+        while (images[index] == null)
+        {
+            checkState();
+            wait();
+        }
+        return images[index];
+    }
+
+    /**
+     * Wait for all the frame images to be loaded and return them.
+     *
+     * @return an unmodifiable list of all the frame images
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if loading failed or was cancelled
+     */
+    public synchronized List<PImage> await() throws InterruptedException
+    {
+        while (loaded < images.length)
+        {
+            checkState();
+            wait();
+        }
+        return new CachedFrames(images);
+    }
+
+    /**
+     * Wait at most the specified timeout for all the frame images to be loaded and return them.
+     *
+     * @param timeout timeout
+     * @param unit timeout unit, must not be null
+     * @return an unmodifiable list of all the frame images
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException if the timeout elapses before all the frame images are loaded
+     * @throws IllegalStateException if loading failed or was cancelled
+     */
+    public synchronized List<PImage> await(final long timeout, final TimeUnit unit)
+        throws InterruptedException, TimeoutException
+    {
+        if (unit == null)
+        {
+            throw new NullPointerException("unit must not be null");
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (loaded < images.length)
+        {
+            checkState();
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L)
+            {
+                throw new TimeoutException("loaded " + loaded + " of " + images.length + " frames");
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return new CachedFrames(images);
+    }
+
+    /**
+     * Cancel loading any frame images not yet loaded.
+     */
+    public synchronized void cancel()
+    {
+        if (cancelled)
+        {
+            return;
+        }
+        cancelled = true;
+        for (Future<?> task : tasks)
+        {
+            task.cancel(true);
+        }
+        tasks.clear();
+        notifyAll();
+    }
+
+    private void checkState()
+    {
+        if (failure != null)
+        {
+            throw new IllegalStateException("could not load frames", failure);
+        }
+        if (cancelled)
+        {
+            throw new IllegalStateException("loading was cancelled");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+/**
+ * Immutable integer rectangle, for example a dirty rectangle redrawn by a compositor.
+ *
+ * @see Compositor
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class Bounds
+{
+    /** X location. */
+    private final int x;
+
+    /** Y location. */
+    private final int y;
+
+    /** Width. */
+    private final int width;
+
+    /** Height. */
+    private final int height;
+
+
+    /**
+     * Create new bounds.
+     *
+     * @param x x location
+     * @param y y location
+     * @param width width
+     * @param height height
+     */
+    public Bounds(final int x, final int y, final int width, final int height)
+    {
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+
+    /**
+     * Return the x location of these bounds.
+     *
+     * @return the x location of these bounds
+     */
+    public int getX()
+    {
+        return x;
+    }
+
+    /**
+     * Return the y location of these bounds.
+     *
+     * @return the y location of these bounds
+     */
+    public int getY()
+    {
+        return y;
+    }
+
+    /**
+     * Return the width of these bounds.
+     *
+     * @return the width of these bounds
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the height of these bounds.
+     *
+     * @return the height of these bounds
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Return true if these bounds have no area.
+     *
+     * @return true if these bounds have no area
+     */
+    public boolean isEmpty()
+    {
+        return width <= 0 || height <= 0;
+    }
+
+    /**
+     * Return true if these bounds and the specified bounds overlap.  Empty bounds
+     * overlap nothing.
+     *
+     * @param bounds bounds, must not be null
+     * @return true if these bounds and the specified bounds overlap
+     */
+    public boolean intersects(final Bounds bounds)
+    {
+        if (bounds == null)
+        {
+            throw new NullPointerException("bounds must not be null");
+        }
+        if (isEmpty() || bounds.isEmpty())
+        {
+            return false;
+        }
+        return (long) x < (long) bounds.x + bounds.width
+            && (long) bounds.x < (long) x + width
+            && (long) y < (long) bounds.y + bounds.height
+            && (long) bounds.y < (long) y + height;
+    }
+
+    /**
+     * Return the smallest bounds containing both these bounds and the specified bounds.
+     *
+     * @param bounds bounds, must not be null
+     * @return the smallest bounds containing both these bounds and the specified bounds
+     */
+    public Bounds union(final Bounds bounds)
+    {
+        if (bounds == null)
+        {
+            throw new NullPointerException("bounds must not be null");
+        }
+        int left = Math.min(x, bounds.x);
+        int top = Math.min(y, bounds.y);
+        int right = Math.max(x + width, bounds.x + bounds.width);
+        int bottom = Math.max(y + height, bounds.y + bounds.height);
+        return new Bounds(left, top, right - left, bottom - top);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+        if (!(o instanceof Bounds))
+        {
+            return false;
+        }
+        Bounds bounds = (Bounds) o;
+        return x == bounds.x && y == bounds.y && width == bounds.width && height == bounds.height;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = 17;
+        result = 31 * result + x;
+        result = 31 * result + y;
+        result = 31 * result + width;
+        result = 31 * result + height;
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Bounds[x=" + x + ", y=" + y + ", width=" + width + ", height=" + height + "]";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import processing.core.PImage;
+
+/**
+ * Image source that decodes images from in-memory byte arrays, either encoded in
+ * a format supported by ImageIO or raw pixel dumps.
+ *
+ * @author  Michael Heuer
+ */
+final class ByteArrayImageSource implements ImageSource
+{
+    /** Byte arrays keyed by name. */
+    private final Map<String, byte[]> byteArrays;
+
+
+    /**
+     * Create a new byte array image source for the specified byte arrays.
+     *
+     * @param byteArrays byte arrays keyed by name
+     */
+    ByteArrayImageSource(final Map<String, byte[]> byteArrays)
+    {
+        this.byteArrays = new HashMap<String, byte[]>(byteArrays);
+    }
+
+
+    @Override
+    public PImage loadImage(final String imageName) throws IOException
+    {
+        byte[] bytes = byteArrays.get(imageName);
+        if (bytes == null)
+        {
+            return null;
+        }
+        PImage image = RawPixelImageSource.decode(ByteBuffer.wrap(bytes));
+        if (image != null)
+        {
+            return image;
+        }
+        return ImageIOImageSource.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    @Override
+    public InputStream createInput(final String name)
+    {
+        byte[] bytes = byteArrays.get(name);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    @Override
+    public File getFile(final String name)
+    {
+        return null;
+    }
+}
@@ -0,0 +1,388 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Compositor that redraws only the regions of the canvas covered by sprites
+ * that changed frame or position since the last draw.
+ *
+ * <p>
+ * Sprites are drawn in the order they were added.  The background, either an image the
+ * same size as the canvas or a solid color, is redrawn under each dirty rectangle before
+ * the sprites intersecting it.  The sketch must not clear the canvas between draws.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class Compositor
+{
+    /** Background image, if any. */
+    private final PImage background;
+
+    /** Background color, used if background image is null. */
+    private final int backgroundColor;
+
+    /** List of sprites, in draw order. */
+    private final List<Sprite> sprites = new ArrayList<Sprite>();
+
+    /** List of dirty rectangles not associated with a sprite. */
+    private final List<Bounds> invalid = new ArrayList<Bounds>();
+
+    /** True if the whole canvas should be redrawn. */
+    private boolean invalidated = true;
+
+
+    /**
+     * Create a new compositor with the specified background image.
+     *
+     * @param background background image, must not be null
+     */
+    Compositor(final PImage background)
+    {
+        if (background == null)
+        {
+            throw new NullPointerException("background must not be null");
+        }
+        this.background = background;
+        this.backgroundColor = 0;
+    }
+
+    /**
+     * Create a new compositor with the specified background color.
+     *
+     * @param backgroundColor background color
+     */
+    Compositor(final int backgroundColor)
+    {
+        this.background = null;
+        this.backgroundColor = backgroundColor;
+    }
+
+
+    /**
+     * Add a new sprite for the specified animation at <code>(x, y)</code>.
+     *
+     * @param animation animation, must not be null
+     * @param x x location
+     * @param y y location
+     * @return a new sprite for the specified animation at <code>(x, y)</code>
+     */
+    public Sprite add(final Animation animation, final float x, final float y)
+    {
+        if (animation == null)
+        {
+            throw new NullPointerException("animation must not be null");
+        }
+        Sprite sprite = new Sprite(animation, x, y);
+        sprites.add(sprite);
+        return sprite;
+    }
+
+    /**
+     * Remove the specified sprite.  The area it last covered will be redrawn on the next draw.
+     *
+     * @param sprite sprite to remove
+     */
+    public void remove(final Sprite sprite)
+    {
+        if (sprites.remove(sprite) && sprite.drawn != null)
+        {
+            invalid.add(sprite.drawn);
+        }
+    }
+
+    /**
+     * Mark the whole canvas to be redrawn on the next draw.
+     */
+    public void invalidate()
+    {
+        invalidated = true;
+    }
+
+    /**
+     * Mark the specified rectangle to be redrawn on the next draw.
+     *
+     * @param x x
+     * @param y y
+     * @param width width
+     * @param height height
+     */
+    public void invalidate(final int x, final int y, final int width, final int height)
+    {
+        invalid.add(new Bounds(x, y, width, height));
+    }
+
+    /**
+     * Advance the animations of all the sprites in this compositor one frame, marking
+     * sprites whose current frame changed as dirty.
+     *
+     * @return true if any sprite is dirty
+     */
+    public boolean advance()
+    {
+        boolean dirty = invalidated || !invalid.isEmpty();
+        for (Sprite sprite : sprites)
+        {
+            if (sprite.animation.advance())
+            {
+                sprite.dirty = true;
+            }
+            dirty |= sprite.dirty;
+        }
+        return dirty;
+    }
+
+    /**
+     * Redraw the dirty rectangles of the specified graphics and return them.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @return the rectangles that were redrawn, possibly empty
+     */
+    public List<Bounds> draw(final PGraphics graphics)
+    {
+        if (graphics == null)
+        {
+            throw new NullPointerException("graphics must not be null");
+        }
+        List<Bounds> dirty = new ArrayList<Bounds>(invalid);
+        invalid.clear();
+        if (invalidated)
+        {
+            dirty.clear();
+            dirty.add(new Bounds(0, 0, graphics.width, graphics.height));
+            invalidated = false;
+        }
+        for (Sprite sprite : sprites)
+        {
+            if (sprite.dirty || sprite.drawn == null)
+            {
+                if (sprite.drawn != null)
+                {
+                    dirty.add(sprite.drawn);
+                }
+                dirty.add(sprite.bounds());
+            }
+        }
+        if (dirty.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        merge(dirty);
+
+        graphics.pushStyle();
+        graphics.imageMode(PGraphics.CORNER);
+        graphics.noStroke();
+        for (Bounds rectangle : dirty)
+        {
+            int x = rectangle.getX();
+            int y = rectangle.getY();
+            int width = rectangle.getWidth();
+            int height = rectangle.getHeight();
+            graphics.clip(x, y, width, height);
+            if (background != null)
+            {
+                graphics.image(background, x, y, width, height, x, y, x + width, y + height);
+            }
+            else
+            {
+                graphics.fill(backgroundColor);
+                graphics.rect(x, y, width, height);
+            }
+            for (Sprite sprite : sprites)
+            {
+                Bounds bounds = sprite.bounds();
+                if (bounds.intersects(rectangle))
+                {
+                    sprite.draw(graphics);
+                }
+            }
+            graphics.noClip();
+        }
+        graphics.popStyle();
+
+        for (Sprite sprite : sprites)
+        {
+            sprite.drawn = sprite.bounds();
+            sprite.dirty = false;
+        }
+        return dirty;
+    }
+
+    /**
+     * Merge overlapping rectangles in the specified list in place.
+     *
+     * @param rectangles list of rectangles
+     */
+    static void merge(final List<Bounds> rectangles)
+    {
+        boolean merged = true;
+        while (merged)
+        {
+            merged = false;
+            for (int i = 0; i < rectangles.size() && !merged; i++)
+            {
+                for (int j = i + 1; j < rectangles.size(); j++)
+                {
+                    if (rectangles.get(i).intersects(rectangles.get(j)))
+                    {
+                        rectangles.set(i, rectangles.get(i).union(rectangles.remove(j)));
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Animated sprite drawn by a compositor.
+     */
+    public static final class Sprite
+    {
+        /** Animation for this sprite. */
+        private final Animation animation;
+
+        /** X location. */
+        private float x;
+
+        /** Y location. */
+        private float y;
+
+        /** True if this sprite changed frame or position since it was last drawn. */
+        private boolean dirty = true;
+
+        /** Bounds when this sprite was last drawn, if any. */
+        private Bounds drawn;
+
+
+        /**
+         * Create a new sprite for the specified animation at <code>(x, y)</code>.
+         *
+         * @param animation animation
+         * @param x x location
+         * @param y y location
+         */
+        private Sprite(final Animation animation, final float x, final float y)
+        {
+            this.animation = animation;
+            this.x = x;
+            this.y = y;
+        }
+
+
+        /**
+         * Return the animation for this sprite.
+         *
+         * @return the animation for this sprite
+         */
+        public Animation getAnimation()
+        {
+            return animation;
+        }
+
+        /**
+         * Return the x location of this sprite.
+         *
+         * @return the x location of this sprite
+         */
+        public float getX()
+        {
+            return x;
+        }
+
+        /**
+         * Return the y location of this sprite.
+         *
+         * @return the y location of this sprite
+         */
+        public float getY()
+        {
+            return y;
+        }
+
+        /**
+         * Move this sprite to <code>(x, y)</code>, marking it dirty if its location changed.
+         *
+         * @param x x location
+         * @param y y location
+         */
+        public void moveTo(final float x, final float y)
+        {
+            if (x != this.x || y != this.y)
+            {
+                this.x = x;
+                this.y = y;
+                dirty = true;
+            }
+        }
+
+        /**
+         * Mark this sprite dirty, for example after advancing its animation outside of the compositor.
+         */
+        public void invalidate()
+        {
+            dirty = true;
+        }
+
+        private Bounds bounds()
+        {
+            int width;
+            int height;
+            if (animation instanceof RegionAnimation)
+            {
+                Region region = ((RegionAnimation) animation).getCurrentRegion();
+                width = region.getSourceWidth();
+                height = region.getSourceHeight();
+            }
+            else
+            {
+                PImage frame = animation.getCurrentFrame();
+                width = frame.width;
+                height = frame.height;
+            }
+            int left = (int) Math.floor(x);
+            int top = (int) Math.floor(y);
+            return new Bounds(left, top, (int) Math.ceil(x + width) - left, (int) Math.ceil(y + height) - top);
+        }
+
+        private void draw(final PGraphics graphics)
+        {
+            if (animation instanceof RegionAnimation)
+            {
+                ((RegionAnimation) animation).draw(graphics, x, y);
+            }
+            else
+            {
+                graphics.image(animation.getCurrentFrame(), x, y);
+            }
+        }
+    }
+}
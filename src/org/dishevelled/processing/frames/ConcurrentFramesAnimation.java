@@ -0,0 +1,214 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import processing.core.PImage;
+
+/**
+ * Frames animation safe for advancing from one or more simulation threads while
+ * a render thread reads the current frame, without locking.
+ *
+ * <p>
+ * The cursor is advanced with a lock-free compare-and-set loop.  In double-buffered mode,
+ * <code>getCurrentFrame()</code> returns the frame at the cursor position last published
+ * with <code>publish()</code>, so the render thread sees a stable frame for the
+ * whole of a draw call regardless of how far simulation has run ahead.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class ConcurrentFramesAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    /** Index of the last published frame. */
+    private volatile int published = 0;
+
+    /** Frames. */
+    private final PImage[] frames;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** True if this animation is double-buffered. */
+    private final boolean buffered;
+
+
+    /**
+     * Create a new concurrent frames animation with the specified list of frames.
+     *
+     * @param frames list of frames, must not be null or empty
+     * @param looped true if this animation loops
+     * @param buffered true if this animation is double-buffered
+     */
+    ConcurrentFramesAnimation(final List<PImage> frames, final boolean looped, final boolean buffered)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        this.frames = frames.toArray(new PImage[frames.size()]);
+        this.looped = looped;
+        this.buffered = buffered;
+    }
+
+
+    @Override
+    public boolean advance()
+    {
+        return advance(1);
+    }
+
+    /**
+     * Advance this animation the specified number of frames.
+     *
+     * @param steps number of frames to advance, must be at least zero
+     * @return true if the current frame changed
+     */
+    public boolean advance(final int steps)
+    {
+        if (steps < 0)
+        {
+            throw new IllegalArgumentException("steps must be at least 0");
+        }
+        FramesMetrics.getInstance().advanced(steps);
+        while (true)
+        {
+            int previous = cursor.get();
+            int next = next(previous, steps);
+            if (next == previous)
+            {
+                return false;
+            }
+            if (cursor.compareAndSet(previous, next))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Publish the current cursor position to the render thread.  Only meaningful
+     * in double-buffered mode.
+     *
+     * @return true if the published frame changed
+     */
+    public boolean publish()
+    {
+        int index = cursor.get();
+        int previous = published;
+        published = index;
+        return index != previous;
+    }
+
+    /**
+     * Reset this animation to the first frame.  In double-buffered mode the first frame
+     * is visible to the render thread after the next call to <code>publish()</code>.
+     */
+    public void reset()
+    {
+        cursor.set(0);
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return frames[buffered ? published : cursor.get()];
+    }
+
+    /**
+     * Return the index of the current frame, as advanced by simulation.
+     *
+     * @return the index of the current frame, as advanced by simulation
+     */
+    public int getIndex()
+    {
+        return cursor.get();
+    }
+
+    /**
+     * Return the index of the frame visible to the render thread.
+     *
+     * @return the index of the frame visible to the render thread
+     */
+    public int getVisibleIndex()
+    {
+        return buffered ? published : cursor.get();
+    }
+
+    /**
+     * Return the number of frames in this animation.
+     *
+     * @return the number of frames in this animation
+     */
+    public int size()
+    {
+        return frames.length;
+    }
+
+    /**
+     * Return true if this animation loops.
+     *
+     * @return true if this animation loops
+     */
+    public boolean isLooped()
+    {
+        return looped;
+    }
+
+    /**
+     * Return true if this animation is double-buffered.
+     *
+     * @return true if this animation is double-buffered
+     */
+    public boolean isBuffered()
+    {
+        return buffered;
+    }
+
+    /**
+     * Return the index of the frame the specified number of steps after the specified index.
+     *
+     * @param index index
+     * @param steps number of steps
+     * @return the index of the frame the specified number of steps after the specified index
+     */
+    private int next(final int index, final int steps)
+    {
+        if (looped)
+        {
+            return (int) ((index + (long) steps) % frames.length);
+        }
+        return (int) Math.min(index + (long) steps, frames.length - 1L);
+    }
+}
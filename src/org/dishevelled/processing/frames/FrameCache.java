@@ -0,0 +1,414 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import java.util.function.Function;
+
+import processing.core.PImage;
+
+/**
+ * Memory-bounded, least recently used cache of frame images, keyed by
+ * source and slice parameters.  Frame images evicted from this cache are
+ * reloaded from their source the next time they are requested.
+ *
+ * <p>
+ * Frame images returned from this cache are shared between all of the animations
+ * and frame lists created from the same source.  Frame images that have ever been
+ * cached are remembered, weakly, as shared, and the in-place flips in {@link Frames}
+ * refuse to modify them.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FrameCache
+{
+    /** Default budget in bytes, <code>64 MiB</code>. */
+    public static final long DEFAULT_BUDGET = 64L * 1024L * 1024L;
+
+    /** Budget in bytes. */
+    private long budget;
+
+    /** Size in bytes. */
+    private long size = 0L;
+
+    /** Number of cache hits. */
+    private long hits = 0L;
+
+    /** Number of cache misses. */
+    private long misses = 0L;
+
+    /** Number of evictions. */
+    private long evictions = 0L;
+
+    /** Cache entries, in access order. */
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    /** Frame images that have been cached, weakly referenced. */
+    private final Map<PImage, Boolean> shared = new WeakHashMap<PImage, Boolean>();
+
+    /** Loads in progress, keyed by key. */
+    private final Map<String, FutureTask<List<PImage>>> loading = new HashMap<String, FutureTask<List<PImage>>>();
+
+
+    /**
+     * Create a new frame cache with the default budget.
+     */
+    FrameCache()
+    {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Create a new frame cache with the specified budget in bytes.
+     *
+     * @param budget budget in bytes, must be at least zero
+     */
+    FrameCache(final long budget)
+    {
+        setBudget(budget);
+    }
+
+
+    /**
+     * Return the list of frame images cached for the specified key, if any.
+     *
+     * @param key key
+     * @return the list of frame images cached for the specified key, or null if
+     *    no frame images are cached for the specified key
+     */
+    synchronized List<PImage> get(final String key)
+    {
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            misses++;
+            FramesMetrics.getInstance().cacheMiss();
+            return null;
+        }
+        hits++;
+        FramesMetrics.getInstance().cacheHit();
+        return entry.frames;
+    }
+
+    /**
+     * Return the list of frame images cached for the specified key, loading and caching
+     * it with the specified loader if necessary.  Concurrent callers requesting the same
+     * key wait for a single load rather than loading it again.  The loader is called
+     * without holding the lock on this frame cache.
+     *
+     * @param key key
+     * @param loader loader for the list of frame images, may return null
+     * @return the list of frame images cached for the specified key, or null if
+     *    the loader returned null
+     */
+    List<PImage> computeIfAbsent(final String key, final Function<String, List<PImage>> loader)
+    {
+        FutureTask<List<PImage>> task;
+        boolean owner = false;
+        synchronized (this)
+        {
+            List<PImage> frames = get(key);
+            if (frames != null)
+            {
+                return frames;
+            }
+            task = loading.get(key);
+            if (task == null)
+            {
+                task = new FutureTask<List<PImage>>(new Callable<List<PImage>>()
+                    {
+                        @Override
+                        public List<PImage> call()
+                        {
+                            return loader.apply(key);
+                        }
+                    });
+                loading.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner)
+        {
+            List<PImage> frames = null;
+            try
+            {
+                task.run();
+                frames = result(task);
+            }
+            finally
+            {
+                synchronized (this)
+                {
+                    if (frames != null)
+                    {
+                        put(key, frames);
+                    }
+                    loading.remove(key);
+                }
+            }
+            return frames;
+        }
+        return result(task);
+    }
+
+    /**
+     * Return the result of the specified load, rethrowing its failure if any.
+     *
+     * @param task load
+     * @return the result of the specified load
+     */
+    private static List<PImage> result(final FutureTask<List<PImage>> task)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return task.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error)
+                    {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Cache the specified list of frame images for the specified key, evicting
+     * least recently used entries as necessary to stay within budget.  Lists
+     * of frame images larger than the budget are not cached.
+     *
+     * @param key key
+     * @param frames list of frame images
+     */
+    synchronized void put(final String key, final List<PImage> frames)
+    {
+        long bytes = sizeOf(frames);
+        Entry previous = entries.remove(key);
+        if (previous != null)
+        {
+            size -= previous.bytes;
+        }
+        if (bytes > budget)
+        {
+            return;
+        }
+        entries.put(key, new Entry(frames, bytes));
+        size += bytes;
+        for (PImage image : frames)
+        {
+            if (image != null)
+            {
+                shared.put(image, Boolean.TRUE);
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Return true if the specified frame image has been cached by this frame cache,
+     * and so may be shared with other callers, even if it has since been evicted.
+     *
+     * @param image frame image
+     * @return true if the specified frame image has been cached by this frame cache
+     */
+    synchronized boolean isShared(final PImage image)
+    {
+        return shared.containsKey(image);
+    }
+
+    /**
+     * Return the budget for this frame cache in bytes.
+     *
+     * @return the budget for this frame cache in bytes
+     */
+    public synchronized long getBudget()
+    {
+        return budget;
+    }
+
+    /**
+     * Set the budget for this frame cache to <code>budget</code> bytes, evicting
+     * least recently used entries as necessary.  A budget of zero disables caching.
+     *
+     * @param budget budget in bytes, must be at least zero
+     */
+    public synchronized void setBudget(final long budget)
+    {
+        if (budget < 0L)
+        {
+            throw new IllegalArgumentException("budget must be at least 0");
+        }
+        this.budget = budget;
+        evict();
+    }
+
+    /**
+     * Return the size of the frame images held by this frame cache in bytes.
+     *
+     * @return the size of the frame images held by this frame cache in bytes
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Return the number of cache hits.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hits;
+    }
+
+    /**
+     * Return the number of cache misses.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount()
+    {
+        return misses;
+    }
+
+    /**
+     * Return the number of entries evicted from this frame cache.
+     *
+     * @return the number of entries evicted from this frame cache
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictions;
+    }
+
+    /**
+     * Remove all the entries from this frame cache.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0L;
+    }
+
+    private void evict()
+    {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > budget && iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+            iterator.remove();
+            size -= entry.bytes;
+            evictions++;
+            FramesMetrics.getInstance().cacheEviction();
+        }
+    }
+
+    /**
+     * Return the size of the specified frame image in bytes.
+     *
+     * @param image frame image
+     * @return the size of the specified frame image in bytes
+     */
+    static long sizeOf(final PImage image)
+    {
+        return image == null ? 0L : 4L * image.width * image.height;
+    }
+
+    /**
+     * Return the size of the specified list of frame images in bytes.
+     *
+     * @param frames list of frame images
+     * @return the size of the specified list of frame images in bytes
+     */
+    static long sizeOf(final List<PImage> frames)
+    {
+        long bytes = 0L;
+        for (PImage image : frames)
+        {
+            bytes += sizeOf(image);
+        }
+        return bytes;
+    }
+
+    /**
+     * Cache entry.
+     */
+    private static final class Entry
+    {
+        /** List of frame images. */
+        private final List<PImage> frames;
+
+        /** Size in bytes. */
+        private final long bytes;
+
+
+        /**
+         * Create a new cache entry.
+         *
+         * @param frames list of frame images
+         * @param bytes size in bytes
+         */
+        Entry(final List<PImage> frames, final long bytes)
+        {
+            this.frames = frames;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import processing.core.PImage;
+
+/**
+ * Content-hash deduplication of frame images.  Frame images with identical
+ * dimensions, format, and pixels are mapped to a single shared frame image,
+ * within and across frame lists passed to the same deduplicator.
+ *
+ * <p>
+ * Unique frame images are held weakly, so a deduplicator does not keep frame images
+ * reachable once no frame list or animation refers to them, and does not defeat
+ * eviction from the frame cache.
+ * </p>
+ *
+ * <p>
+ * Frame images returned from this deduplicator may be shared between several
+ * frame lists and animations.  Modifying them in place, for example with
+ * {@link Frames#flipHorizontallyInPlace(PImage)}, is not supported: the change
+ * is visible to every frame list sharing the frame image, and the deduplicator
+ * continues to index the frame image under its original content hash.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FrameDeduplicator
+{
+    /** Number of frame images seen. */
+    private long count = 0L;
+
+    /** Number of duplicate frame images seen. */
+    private long duplicates = 0L;
+
+    /** Size of the duplicate frame images seen, in bytes. */
+    private long savedBytes = 0L;
+
+    /** Weak references to unique frame images, keyed by content hash. */
+    private final Map<Integer, List<UniqueFrame>> unique = new HashMap<Integer, List<UniqueFrame>>();
+
+    /** Queue of weak references to unique frame images that have been collected. */
+    private final ReferenceQueue<PImage> collected = new ReferenceQueue<PImage>();
+
+
+    /**
+     * Create a new frame deduplicator.
+     */
+    FrameDeduplicator()
+    {
+        // empty
+    }
+
+
+    /**
+     * Return the shared frame image with the same content as the specified frame image,
+     * or the specified frame image if no frame image with the same content has been seen.
+     *
+     * @param image frame image, must not be null
+     * @return the shared frame image with the same content as the specified frame image
+     */
+    public synchronized PImage deduplicate(final PImage image)
+    {
+        if (image == null)
+        {
+            throw new NullPointerException("image must not be null");
+        }
+        expunge();
+        image.loadPixels();
+        count++;
+        Integer hash = Integer.valueOf(hash(image));
+        List<UniqueFrame> candidates = unique.get(hash);
+        if (candidates == null)
+        {
+            candidates = new ArrayList<UniqueFrame>(1);
+            unique.put(hash, candidates);
+        }
+        for (UniqueFrame uniqueFrame : candidates)
+        {
+            PImage candidate = uniqueFrame.get();
+            if (candidate == image)
+            {
+                return candidate;
+            }
+            if (candidate != null && sameContent(candidate, image))
+            {
+                duplicates++;
+                savedBytes += FrameCache.sizeOf(image);
+                return candidate;
+            }
+        }
+        candidates.add(new UniqueFrame(image, hash, collected));
+        return image;
+    }
+
+    /**
+     * Return a new list containing the shared frame image for each of the specified
+     * frame images.
+     *
+     * @param frameImages list of frame images, must not be null
+     * @return a new list containing the shared frame image for each of the specified
+     *    frame images
+     */
+    public synchronized List<PImage> deduplicate(final List<PImage> frameImages)
+    {
+        if (frameImages == null)
+        {
+            throw new NullPointerException("frameImages must not be null");
+        }
+        long start = System.nanoTime();
+        List<PImage> deduplicated = new ArrayList<PImage>(frameImages.size());
+        for (PImage image : frameImages)
+        {
+            deduplicated.add(deduplicate(image));
+        }
+        FramesMetrics.getInstance().recordTransform("deduplicate", System.nanoTime() - start);
+        return deduplicated;
+    }
+
+    /**
+     * Return a new list containing the shared frame image for each of the specified
+     * frame images.
+     *
+     * @param frameImages one or more frame images, must not be null
+     * @return a new list containing the shared frame image for each of the specified
+     *    frame images
+     */
+    public List<PImage> deduplicate(final PImage... frameImages)
+    {
+        if (frameImages == null)
+        {
+            throw new NullPointerException("frameImages must not be null");
+        }
+        return deduplicate(Arrays.asList(frameImages));
+    }
+
+    /**
+     * Return the number of frame images seen by this deduplicator.
+     *
+     * @return the number of frame images seen by this deduplicator
+     */
+    public synchronized long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * Return the number of unique frame images seen by this deduplicator that are still reachable.
+     *
+     * @return the number of unique frame images seen by this deduplicator that are still reachable
+     */
+    public synchronized long getUniqueCount()
+    {
+        expunge();
+        long uniqueCount = 0L;
+        for (List<UniqueFrame> candidates : unique.values())
+        {
+            uniqueCount += candidates.size();
+        }
+        return uniqueCount;
+    }
+
+    /**
+     * Return the number of duplicate frame images replaced by a shared frame image.
+     *
+     * @return the number of duplicate frame images replaced by a shared frame image
+     */
+    public synchronized long getDuplicateCount()
+    {
+        return duplicates;
+    }
+
+    /**
+     * Return the size of the duplicate frame images replaced by a shared frame image, in bytes.
+     *
+     * @return the size of the duplicate frame images replaced by a shared frame image, in bytes
+     */
+    public synchronized long getSavedBytes()
+    {
+        return savedBytes;
+    }
+
+    /**
+     * Forget all the frame images seen by this deduplicator and reset its counts.
+     */
+    public synchronized void clear()
+    {
+        unique.clear();
+        count = 0L;
+        duplicates = 0L;
+        savedBytes = 0L;
+    }
+
+    /**
+     * Forget unique frame images that have been collected.
+     */
+    private void expunge()
+    {
+        Reference<? extends PImage> reference;
+        while ((reference = collected.poll()) != null)
+        {
+            UniqueFrame uniqueFrame = (UniqueFrame) reference;
+            List<UniqueFrame> candidates = unique.get(uniqueFrame.hash);
+            if (candidates != null)
+            {
+                for (Iterator<UniqueFrame> i = candidates.iterator(); i.hasNext(); )
+                {
+                    if (i.next() == uniqueFrame)
+                    {
+                        i.remove();
+                    }
+                }
+                if (candidates.isEmpty())
+                {
+                    unique.remove(uniqueFrame.hash);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return a content hash for the specified frame image.
+     *
+     * @param image frame image
+     * @return a content hash for the specified frame image
+     */
+    static int hash(final PImage image)
+    {
+        int result = 17;
+        result = 31 * result + image.width;
+        result = 31 * result + image.height;
+        result = 31 * result + image.format;
+        result = 31 * result + Arrays.hashCode(image.pixels);
+        return result;
+    }
+
+    /**
+     * Return true if the specified frame images have the same dimensions, format, and pixels.
+     *
+     * @param image0 first frame image
+     * @param image1 second frame image
+     * @return true if the specified frame images have the same dimensions, format, and pixels
+     */
+    static boolean sameContent(final PImage image0, final PImage image1)
+    {
+        return image0.width == image1.width
+            && image0.height == image1.height
+            && image0.format == image1.format
+            && Arrays.equals(image0.pixels, image1.pixels);
+    }
+
+    /**
+     * Weak reference to a unique frame image, with its content hash.
+     */
+    private static final class UniqueFrame extends WeakReference<PImage>
+    {
+        /** Content hash. */
+        private final Integer hash;
+
+
+        /**
+         * Create a new weak reference to the specified unique frame image.
+         *
+         * @param image unique frame image
+         * @param hash content hash
+         * @param queue queue to register with
+         */
+        UniqueFrame(final PImage image, final Integer hash, final ReferenceQueue<PImage> queue)
+        {
+            super(image, queue);
+            this.hash = hash;
+        }
+    }
+}
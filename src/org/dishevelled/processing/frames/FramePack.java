@@ -0,0 +1,357 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import processing.core.PImage;
+
+/**
+ * Frame pack, pre-processed frame lists and animations loaded from a memory-mapped file.
+ * Frame images are decoded from the mapped file the first time each entry is requested.
+ *
+ * @see FramePackWriter
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FramePack implements Closeable
+{
+    /** Source file name, for metrics. */
+    private final String source;
+
+    /** File channel. */
+    private final FileChannel channel;
+
+    /** Memory-mapped file. */
+    private final MappedByteBuffer buffer;
+
+    /** Entries keyed by name. */
+    private final Map<String, Entry> entries;
+
+    /** Decoded frame images keyed by offset. */
+    private final Map<Long, PImage> decoded = new HashMap<Long, PImage>();
+
+
+    /**
+     * Open a frame pack from the specified file.
+     *
+     * @param file file, must not be null
+     * @throws IOException if an I/O error occurs or the file is not a frame pack
+     */
+    FramePack(final File file) throws IOException
+    {
+        if (file == null)
+        {
+            throw new NullPointerException("file must not be null");
+        }
+        source = file.getPath();
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            entries = readIndex(buffer);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Return the names of the entries in this frame pack.
+     *
+     * @return the names of the entries in this frame pack
+     */
+    public Set<String> getNames()
+    {
+        return entries.keySet();
+    }
+
+    /**
+     * Return the list of frame images for the entry with the specified name.
+     *
+     * @param name name, must not be null
+     * @return the list of frame images for the entry with the specified name
+     * @throws IllegalArgumentException if no entry exists with the specified name
+     * @throws UncheckedIOException if the frame pack is malformed
+     */
+    public synchronized List<PImage> getFrameList(final String name)
+    {
+        Entry entry = getEntry(name);
+        List<PImage> frames = new ArrayList<PImage>(entry.offsets.length);
+        for (int i = 0; i < entry.offsets.length; i++)
+        {
+            PImage frame = decoded.get(entry.offsets[i]);
+            if (frame == null)
+            {
+                long start = System.nanoTime();
+                frame = decode(entry.widths[i], entry.heights[i], entry.encodings[i], entry.offsets[i]);
+                FramesMetrics.getInstance().recordLoad(source + "#" + name, System.nanoTime() - start);
+                FramesMetrics.getInstance().track(frame);
+                decoded.put(entry.offsets[i], frame);
+            }
+            frames.add(frame);
+        }
+        return Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * Return true if the entry with the specified name was written as a looped animation.
+     *
+     * @param name name, must not be null
+     * @return true if the entry with the specified name was written as a looped animation
+     */
+    public boolean isLooped(final String name)
+    {
+        return getEntry(name).kind == FramePackWriter.LOOPED_ANIMATION;
+    }
+
+    /**
+     * Create and return a new animation for the entry with the specified name, a looped
+     * frames animation if the entry was written as a looped animation and a multiple frames
+     * animation otherwise.
+     *
+     * @param name name, must not be null
+     * @return a new animation for the entry with the specified name
+     * @throws UncheckedIOException if the frame pack is malformed
+     */
+    public Animation createAnimation(final String name)
+    {
+        List<PImage> frames = getFrameList(name);
+        return isLooped(name) ? new LoopedFramesAnimation(frames) : new MultipleFramesAnimation(frames);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    private Entry getEntry(final String name)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name must not be null");
+        }
+        Entry entry = entries.get(name);
+        if (entry == null)
+        {
+            throw new IllegalArgumentException("no entry for name " + name);
+        }
+        return entry;
+    }
+
+    private PImage decode(final int width, final int height, final byte encoding, final long offset)
+    {
+        PImage frame = new PImage(width, height, PImage.ARGB);
+        ByteBuffer data = buffer.duplicate();
+        data.position((int) offset);
+        if (encoding == FramePackWriter.RAW)
+        {
+            IntBuffer ints = data.asIntBuffer();
+            ints.get(frame.pixels, 0, width * height);
+        }
+        else
+        {
+            int[] palette = new int[data.getShort() & 0xffff];
+            data.asIntBuffer().get(palette);
+            data.position(data.position() + 4 * palette.length);
+            for (int i = 0, size = width * height; i < size; i++)
+            {
+                int index = data.get() & 0xff;
+                if (index >= palette.length)
+                {
+                    throw new UncheckedIOException(new IOException("malformed frame pack"));
+                }
+                frame.pixels[i] = palette[index];
+            }
+        }
+        frame.updatePixels();
+        return frame;
+    }
+
+    private static Map<String, Entry> readIndex(final ByteBuffer buffer) throws IOException
+    {
+        ByteBuffer header = buffer.duplicate();
+        if (header.remaining() < FramePackWriter.HEADER_SIZE || header.getInt() != FramePackWriter.MAGIC)
+        {
+            throw new IOException("not a frame pack");
+        }
+        short version = header.getShort();
+        if (version != FramePackWriter.VERSION)
+        {
+            throw new IOException("unsupported frame pack version " + version);
+        }
+        header.getShort();
+        long indexOffset = header.getLong();
+        int count = header.getInt();
+        if (indexOffset < FramePackWriter.HEADER_SIZE || indexOffset > buffer.limit())
+        {
+            throw new IOException("frame pack index offset " + indexOffset + " out of range");
+        }
+        if (count < 0)
+        {
+            throw new IOException("frame pack entry count " + count + " out of range");
+        }
+
+        ByteBuffer index = buffer.duplicate();
+        index.position((int) indexOffset);
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                byte[] utf = new byte[index.getShort() & 0xffff];
+                index.get(utf);
+                String name = new String(utf, StandardCharsets.UTF_8);
+                byte kind = index.get();
+                int frames = index.getInt();
+                if (frames < 0 || frames > index.remaining() / FramePackWriter.FRAME_RECORD_SIZE)
+                {
+                    throw new IOException("frame count " + frames + " for entry " + name + " out of range");
+                }
+                Entry entry = new Entry(kind, frames);
+                for (int j = 0; j < frames; j++)
+                {
+                    entry.widths[j] = index.getInt();
+                    entry.heights[j] = index.getInt();
+                    entry.encodings[j] = index.get();
+                    entry.offsets[j] = index.getLong();
+                    checkFrame(buffer, indexOffset, name, entry.widths[j], entry.heights[j], entry.encodings[j], entry.offsets[j]);
+                }
+                entries.put(name, entry);
+            }
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new IOException("truncated frame pack index", e);
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Check that the specified frame lies within the frame data of the specified buffer.
+     *
+     * @param buffer buffer
+     * @param indexOffset index offset, the end of the frame data
+     * @param name entry name
+     * @param width frame width
+     * @param height frame height
+     * @param encoding frame encoding
+     * @param offset frame offset
+     * @throws IOException if the frame does not lie within the frame data
+     */
+    private static void checkFrame(final ByteBuffer buffer, final long indexOffset, final String name,
+                                   final int width, final int height, final byte encoding, final long offset)
+        throws IOException
+    {
+        if (width < 0 || height < 0)
+        {
+            throw new IOException("frame size " + width + "x" + height + " for entry " + name + " out of range");
+        }
+        long pixels = (long) width * height;
+        long size;
+        if (encoding == FramePackWriter.RAW)
+        {
+            size = 4L * pixels;
+        }
+        else if (encoding == FramePackWriter.PALETTE)
+        {
+            if (offset < FramePackWriter.HEADER_SIZE || offset + 2L > indexOffset)
+            {
+                throw new IOException("frame offset " + offset + " for entry " + name + " out of range");
+            }
+            int paletteSize = buffer.getShort((int) offset) & 0xffff;
+            size = 2L + 4L * paletteSize + pixels;
+        }
+        else
+        {
+            throw new IOException("unknown frame encoding " + encoding + " for entry " + name);
+        }
+        if (offset < FramePackWriter.HEADER_SIZE || offset + size > indexOffset)
+        {
+            throw new IOException("frame offset " + offset + " for entry " + name + " out of range");
+        }
+    }
+
+    /**
+     * Frame pack index entry.
+     */
+    private static final class Entry
+    {
+        /** Entry kind. */
+        private final byte kind;
+
+        /** Frame widths. */
+        private final int[] widths;
+
+        /** Frame heights. */
+        private final int[] heights;
+
+        /** Frame encodings. */
+        private final byte[] encodings;
+
+        /** Frame offsets. */
+        private final long[] offsets;
+
+
+        /**
+         * Create a new frame pack index entry.
+         *
+         * @param kind entry kind
+         * @param frames number of frames
+         */
+        Entry(final byte kind, final int frames)
+        {
+            this.kind = kind;
+            widths = new int[frames];
+            heights = new int[frames];
+            encodings = new byte[frames];
+            offsets = new long[frames];
+        }
+    }
+}
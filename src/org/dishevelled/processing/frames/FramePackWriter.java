@@ -0,0 +1,283 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import processing.core.PImage;
+
+/**
+ * Writer for frame packs, a compact binary format for pre-processed frame lists and animations.
+ *
+ * <p>
+ * A frame pack contains a fixed size header, frame pixel data, and an index.  Frames with
+ * at most 256 distinct colors are stored palette-indexed, one byte per pixel; others are stored as
+ * raw ARGB pixels.  All values are big-endian.
+ * </p>
+ * <pre>
+ * header  := magic:int("FRPK") version:short reserved:short indexOffset:long entryCount:int
+ * frame   := raw:int[width * height]
+ *          | paletteSize:short palette:int[paletteSize] indices:byte[width * height]
+ * index   := entry*
+ * entry   := nameLength:short name:byte[nameLength] kind:byte frameCount:int (width:int height:int encoding:byte offset:long)*
+ * </pre>
+ *
+ * <p>
+ * Names are encoded as standard UTF-8, at most {@value #MAX_NAME_LENGTH} bytes.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FramePackWriter
+{
+    /** Frame pack magic number, <code>"FRPK"</code>. */
+    static final int MAGIC = 0x4652504b;
+
+    /** Frame pack format version. */
+    static final short VERSION = 1;
+
+    /** Header size in bytes. */
+    static final int HEADER_SIZE = 20;
+
+    /** Maximum length of an entry name in UTF-8 bytes. */
+    static final int MAX_NAME_LENGTH = 65535;
+
+    /** Size of a frame record in the index in bytes. */
+    static final int FRAME_RECORD_SIZE = 17;
+
+    /** Entry kind for a frame list. */
+    static final byte FRAME_LIST = 0;
+
+    /** Entry kind for a multiple frames animation. */
+    static final byte ANIMATION = 1;
+
+    /** Entry kind for a looped frames animation. */
+    static final byte LOOPED_ANIMATION = 2;
+
+    /** Frame encoding for raw ARGB pixels. */
+    static final byte RAW = 0;
+
+    /** Frame encoding for palette-indexed pixels. */
+    static final byte PALETTE = 1;
+
+    /** Entries keyed by name. */
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+
+    /**
+     * Create a new frame pack writer.
+     */
+    FramePackWriter()
+    {
+        // empty
+    }
+
+
+    /**
+     * Add the specified frame list with the specified name.
+     *
+     * @param name name, must not be null
+     * @param frames list of frame images, must not be null
+     * @return this frame pack writer
+     */
+    public FramePackWriter addFrameList(final String name, final List<PImage> frames)
+    {
+        return add(name, frames, FRAME_LIST);
+    }
+
+    /**
+     * Add a multiple frames animation of the specified frame images with the specified name.
+     *
+     * @param name name, must not be null
+     * @param frames list of frame images, must not be null or empty
+     * @return this frame pack writer
+     */
+    public FramePackWriter addAnimation(final String name, final List<PImage> frames)
+    {
+        return add(name, frames, ANIMATION);
+    }
+
+    /**
+     * Add a looped frames animation of the specified frame images with the specified name.
+     *
+     * @param name name, must not be null
+     * @param frames list of frame images, must not be null or empty
+     * @return this frame pack writer
+     */
+    public FramePackWriter addLoopedAnimation(final String name, final List<PImage> frames)
+    {
+        return add(name, frames, LOOPED_ANIMATION);
+    }
+
+    /**
+     * Write a frame pack containing all the entries added to this writer to the specified file.
+     *
+     * @param file file to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final File file) throws IOException
+    {
+        if (file == null)
+        {
+            throw new NullPointerException("file must not be null");
+        }
+        Map<PImage, Long> offsets = new HashMap<PImage, Long>();
+        Map<PImage, Byte> encodings = new HashMap<PImage, Byte>();
+        long indexOffset;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+        {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(0L);
+            out.writeInt(entries.size());
+
+            long position = HEADER_SIZE;
+            for (Entry entry : entries.values())
+            {
+                for (PImage frame : entry.frames)
+                {
+                    if (offsets.containsKey(frame))
+                    {
+                        continue;
+                    }
+                    offsets.put(frame, position);
+                    int[] pixels = Pixels.argb(frame);
+                    int[] palette = Pixels.palette(pixels);
+                    if (palette == null)
+                    {
+                        encodings.put(frame, RAW);
+                        for (int pixel : pixels)
+                        {
+                            out.writeInt(pixel);
+                        }
+                        position += 4L * pixels.length;
+                    }
+                    else
+                    {
+                        encodings.put(frame, PALETTE);
+                        out.writeShort(palette.length);
+                        for (int color : palette)
+                        {
+                            out.writeInt(color);
+                        }
+                        for (int pixel : pixels)
+                        {
+                            out.writeByte(Arrays.binarySearch(palette, pixel));
+                        }
+                        position += 2L + 4L * palette.length + pixels.length;
+                    }
+                }
+            }
+
+            indexOffset = position;
+            for (Entry entry : entries.values())
+            {
+                byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeByte(entry.kind);
+                out.writeInt(entry.frames.size());
+                for (PImage frame : entry.frames)
+                {
+                    out.writeInt(frame.width);
+                    out.writeInt(frame.height);
+                    out.writeByte(encodings.get(frame));
+                    out.writeLong(offsets.get(frame));
+                }
+            }
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"))
+        {
+            randomAccessFile.seek(8L);
+            randomAccessFile.writeLong(indexOffset);
+        }
+    }
+
+    private FramePackWriter add(final String name, final List<PImage> frames, final byte kind)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name must not be null");
+        }
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (kind != FRAME_LIST && frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        if (name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH)
+        {
+            throw new IllegalArgumentException("name must be at most " + MAX_NAME_LENGTH + " bytes in UTF-8");
+        }
+        entries.put(name, new Entry(name, frames, kind));
+        return this;
+    }
+
+    /**
+     * Frame pack entry.
+     */
+    private static final class Entry
+    {
+        /** Name. */
+        private final String name;
+
+        /** List of frame images. */
+        private final List<PImage> frames;
+
+        /** Entry kind. */
+        private final byte kind;
+
+
+        /**
+         * Create a new frame pack entry.
+         *
+         * @param name name
+         * @param frames list of frame images
+         * @param kind entry kind
+         */
+        Entry(final String name, final List<PImage> frames, final byte kind)
+        {
+            this.name = name;
+            this.frames = new ArrayList<PImage>(frames);
+            this.kind = kind;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.List;
+
+import java.util.function.IntConsumer;
+
+import java.util.stream.IntStream;
+
+import processing.core.PImage;
+
+/**
+ * Resolution pyramid of a list of frame images, pre-scaled by powers of two.
+ *
+ * <p>
+ * Levels below the original frame images are downsampled by half per level with
+ * a box filter; levels above are upscaled by two per level, with nearest neighbour
+ * sampling or with the Scale2x pixel art algorithm.  All levels are built in parallel
+ * when the pyramid is created.  Drawing the level closest to the requested draw size
+ * lowers fill rate and the cost of scaling on every draw.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FramePyramid
+{
+    /** Number of downsampled levels. */
+    private final int downLevels;
+
+    /** Number of upscaled levels. */
+    private final int upLevels;
+
+    /** Upscale algorithm. */
+    private final Upscale upscale;
+
+    /** Frame images, indexed by frame and then level, smallest level first. */
+    private final PImage[][] frames;
+
+
+    /**
+     * Create a new frame pyramid.
+     *
+     * @param images list of frame images, must not be null or empty
+     * @param downLevels number of downsampled levels, must be at least zero
+     * @param upLevels number of upscaled levels, must be at least zero
+     * @param upscale upscale algorithm, must not be null
+     */
+    FramePyramid(final List<PImage> images, final int downLevels, final int upLevels, final Upscale upscale)
+    {
+        if (images == null)
+        {
+            throw new NullPointerException("images must not be null");
+        }
+        if (images.isEmpty())
+        {
+            throw new IllegalArgumentException("images must not be empty");
+        }
+        if (downLevels < 0)
+        {
+            throw new IllegalArgumentException("downLevels must be at least 0");
+        }
+        if (upLevels < 0)
+        {
+            throw new IllegalArgumentException("upLevels must be at least 0");
+        }
+        if (upscale == null)
+        {
+            throw new NullPointerException("upscale must not be null");
+        }
+        this.downLevels = downLevels;
+        this.upLevels = upLevels;
+        this.upscale = upscale;
+
+        long start = System.nanoTime();
+        final PImage[] sources = images.toArray(new PImage[images.size()]);
+        frames = new PImage[sources.length][];
+        IntStream.range(0, sources.length).parallel().forEach(new IntConsumer()
+            {
+                @Override
+                public void accept(final int frame)
+                {
+                    frames[frame] = build(sources[frame]);
+                }
+            });
+        FramesMetrics.getInstance().recordTransform("createFramePyramid", System.nanoTime() - start);
+    }
+
+
+    /**
+     * Return the number of frames in this pyramid.
+     *
+     * @return the number of frames in this pyramid
+     */
+    public int size()
+    {
+        return frames.length;
+    }
+
+    /**
+     * Return the number of levels in this pyramid, including the original frame images.
+     *
+     * @return the number of levels in this pyramid
+     */
+    public int getLevelCount()
+    {
+        return downLevels + 1 + upLevels;
+    }
+
+    /**
+     * Return the level of the original frame images.
+     *
+     * @return the level of the original frame images
+     */
+    public int getBaseLevel()
+    {
+        return downLevels;
+    }
+
+    /**
+     * Return the scale of the specified level relative to the original frame images.
+     *
+     * @param level level, from zero to <code>getLevelCount() - 1</code>
+     * @return the scale of the specified level relative to the original frame images
+     */
+    public float getScale(final int level)
+    {
+        return (float) Math.pow(2.0d, level - downLevels);
+    }
+
+    /**
+     * Return the level closest to the specified scale relative to the original frame images.
+     *
+     * @param scale scale, must be greater than zero
+     * @return the level closest to the specified scale
+     */
+    public int getLevel(final float scale)
+    {
+        if (scale <= 0.0f)
+        {
+            throw new IllegalArgumentException("scale must be greater than 0");
+        }
+        long level = Math.round(Math.log(scale) / Math.log(2.0d)) + downLevels;
+        return (int) Math.max(0L, Math.min(getLevelCount() - 1L, level));
+    }
+
+    /**
+     * Return the upscale algorithm for this pyramid.
+     *
+     * @return the upscale algorithm for this pyramid
+     */
+    public Upscale getUpscale()
+    {
+        return upscale;
+    }
+
+    /**
+     * Return the original frame image for the specified frame.
+     *
+     * @param frame frame, from zero to <code>size() - 1</code>
+     * @return the original frame image for the specified frame
+     */
+    public PImage getFrame(final int frame)
+    {
+        return frames[frame][downLevels];
+    }
+
+    /**
+     * Return the frame image for the specified frame at the specified level.
+     *
+     * @param frame frame, from zero to <code>size() - 1</code>
+     * @param level level, from zero to <code>getLevelCount() - 1</code>
+     * @return the frame image for the specified frame at the specified level
+     */
+    public PImage getFrame(final int frame, final int level)
+    {
+        return frames[frame][level];
+    }
+
+    /**
+     * Return the frame image for the specified frame at the level closest to the specified
+     * draw size.
+     *
+     * @param frame frame, from zero to <code>size() - 1</code>
+     * @param width draw width, must be greater than zero
+     * @param height draw height, must be greater than zero
+     * @return the frame image for the specified frame at the level closest to the specified
+     *    draw size
+     */
+    public PImage getFrame(final int frame, final float width, final float height)
+    {
+        PImage base = getFrame(frame);
+        float scale = Math.max(width / base.width, height / base.height);
+        return frames[frame][getLevel(scale)];
+    }
+
+    /**
+     * Return the levels for the specified frame image, smallest level first.
+     *
+     * @param image frame image
+     * @return the levels for the specified frame image
+     */
+    private PImage[] build(final PImage image)
+    {
+        PImage[] levels = new PImage[getLevelCount()];
+        levels[downLevels] = image;
+
+        int[] pixels = Pixels.argb(image);
+        int width = image.width;
+        int height = image.height;
+        for (int level = downLevels - 1; level >= 0; level--)
+        {
+            pixels = Pixels.downsample(pixels, width, height);
+            width = Math.max(1, width / 2);
+            height = Math.max(1, height / 2);
+            levels[level] = createImage(pixels, width, height);
+        }
+
+        pixels = Pixels.argb(image);
+        width = image.width;
+        height = image.height;
+        for (int level = downLevels + 1; level < levels.length; level++)
+        {
+            pixels = (upscale == Upscale.SCALE2X) ? Pixels.scale2x(pixels, width, height) : Pixels.scaleNearest(pixels, width, height, 2);
+            width *= 2;
+            height *= 2;
+            levels[level] = createImage(pixels, width, height);
+        }
+        return levels;
+    }
+
+    private static PImage createImage(final int[] pixels, final int width, final int height)
+    {
+        PImage image = new PImage(width, height, PImage.ARGB);
+        System.arraycopy(pixels, 0, image.pixels, 0, pixels.length);
+        image.updatePixels();
+        return FramesMetrics.getInstance().track(image);
+    }
+
+    /**
+     * Upscale algorithm.
+     */
+    public enum Upscale
+    {
+        /** Nearest neighbour sampling. */
+        NEAREST,
+
+        /** Scale2x pixel art algorithm. */
+        SCALE2X;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import processing.core.PImage;
+
+/**
+ * Immutable list of frame images, shared without copying between all of the
+ * animations and playback modes created from it.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FrameStore extends AbstractList<PImage> implements RandomAccess, SharedFrames
+{
+    /** Frame images. */
+    private final PImage[] frames;
+
+
+    /**
+     * Create a new frame store containing the specified frame images.
+     *
+     * @param frames list of frame images, must not be null or empty
+     */
+    FrameStore(final List<PImage> frames)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        this.frames = frames.toArray(new PImage[frames.size()]);
+        for (PImage frame : this.frames)
+        {
+            if (frame == null)
+            {
+                throw new NullPointerException("frames must not contain null frame images");
+            }
+        }
+    }
+
+
+    @Override
+    public PImage get(final int index)
+    {
+        return frames[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return frames.length;
+    }
+}
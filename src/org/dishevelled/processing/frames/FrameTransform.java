@@ -0,0 +1,321 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import processing.core.PImage;
+
+/**
+ * Composable frame image transform, a chain of flips, rotations, palette swaps,
+ * and tints applied in order.  Frame transforms are immutable; each method returns
+ * a new frame transform with one more step appended.
+ *
+ * <p>
+ * For example, to derive a flipped, recolored variant of a character:
+ * </p>
+ * <pre>
+ * FrameTransform infected = FrameTransform.identity().swapPalette(healthy, green).flipHorizontally();
+ * List&lt;PImage&gt; infectedHat = frames.transform(hat, infected);
+ * </pre>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FrameTransform
+{
+    /** Identity frame transform. */
+    private static final FrameTransform IDENTITY = new FrameTransform(new Step[0]);
+
+    /** Steps, applied in order. */
+    private final Step[] steps;
+
+
+    /**
+     * Create a new frame transform with the specified steps.
+     *
+     * @param steps steps, applied in order
+     */
+    private FrameTransform(final Step[] steps)
+    {
+        this.steps = steps;
+    }
+
+
+    /**
+     * Return the identity frame transform.
+     *
+     * @return the identity frame transform
+     */
+    public static FrameTransform identity()
+    {
+        return IDENTITY;
+    }
+
+    /**
+     * Return a new frame transform that also flips horizontally.
+     *
+     * @return a new frame transform that also flips horizontally
+     */
+    public FrameTransform flipHorizontally()
+    {
+        return append(new Step()
+            {
+                @Override
+                PImage apply(final PImage image)
+                {
+                    PImage flipped = new PImage(image.width, image.height, PImage.ARGB);
+                    Pixels.flipHorizontally(Pixels.argb(image), flipped.pixels, image.width, image.height);
+                    return flipped;
+                }
+            });
+    }
+
+    /**
+     * Return a new frame transform that also flips vertically.
+     *
+     * @return a new frame transform that also flips vertically
+     */
+    public FrameTransform flipVertically()
+    {
+        return append(new Step()
+            {
+                @Override
+                PImage apply(final PImage image)
+                {
+                    PImage flipped = new PImage(image.width, image.height, PImage.ARGB);
+                    Pixels.flipVertically(Pixels.argb(image), flipped.pixels, image.width, image.height);
+                    return flipped;
+                }
+            });
+    }
+
+    /**
+     * Return a new frame transform that also rotates by the specified step out of
+     * the specified number of steps in 360 degrees, with nearest neighbour sampling.
+     *
+     * @param step step, from zero to <code>steps - 1</code>
+     * @param steps number of steps in 360 degrees, must be at least one
+     * @return a new frame transform that also rotates by the specified step
+     */
+    public FrameTransform rotate(final int step, final int steps)
+    {
+        return rotate(step, steps, false);
+    }
+
+    /**
+     * Return a new frame transform that also rotates by the specified step out of
+     * the specified number of steps in 360 degrees.
+     *
+     * @param step step, from zero to <code>steps - 1</code>
+     * @param steps number of steps in 360 degrees, must be at least one
+     * @param smooth true to rotate with bilinear sampling, false for nearest neighbour
+     * @return a new frame transform that also rotates by the specified step
+     */
+    public FrameTransform rotate(final int step, final int steps, final boolean smooth)
+    {
+        if (steps < 1)
+        {
+            throw new IllegalArgumentException("steps must be at least 1");
+        }
+        if (step < 0 || step >= steps)
+        {
+            throw new IllegalArgumentException("step must be at least 0 and less than steps");
+        }
+        return append(new Step()
+            {
+                @Override
+                PImage apply(final PImage image)
+                {
+                    return new Rotations(image, steps, smooth).get(step);
+                }
+            });
+    }
+
+    /**
+     * Return a new frame transform that also replaces each color in <code>from</code>
+     * with the color at the same index in <code>to</code>.  Colors are compared as ARGB;
+     * colors not in <code>from</code> are left unchanged.
+     *
+     * @param from colors to replace, must not be null
+     * @param to replacement colors, must not be null and must be the same length as <code>from</code>
+     * @return a new frame transform that also swaps the specified colors
+     */
+    public FrameTransform swapPalette(final int[] from, final int[] to)
+    {
+        if (from == null)
+        {
+            throw new NullPointerException("from must not be null");
+        }
+        if (to == null)
+        {
+            throw new NullPointerException("to must not be null");
+        }
+        if (from.length != to.length)
+        {
+            throw new IllegalArgumentException("from and to must be the same length");
+        }
+        final Map<Integer, Integer> colors = new HashMap<Integer, Integer>(from.length * 2);
+        for (int i = 0; i < from.length; i++)
+        {
+            colors.put(Integer.valueOf(from[i]), Integer.valueOf(to[i]));
+        }
+        return append(new Step()
+            {
+                @Override
+                PImage apply(final PImage image)
+                {
+                    int[] source = Pixels.argb(image);
+                    PImage swapped = new PImage(image.width, image.height, PImage.ARGB);
+                    int[] target = swapped.pixels;
+                    // remember the last lookup, pixel art has long runs of one color
+                    int previous = 0;
+                    int replacement = colors.containsKey(Integer.valueOf(0)) ? colors.get(Integer.valueOf(0)).intValue() : 0;
+                    for (int i = 0; i < source.length; i++)
+                    {
+                        int pixel = source[i];
+                        if (pixel != previous)
+                        {
+                            Integer color = colors.get(Integer.valueOf(pixel));
+                            replacement = (color == null) ? pixel : color.intValue();
+                            previous = pixel;
+                        }
+                        target[i] = replacement;
+                    }
+                    return swapped;
+                }
+            });
+    }
+
+    /**
+     * Return a new frame transform that also tints by the specified color, multiplying
+     * each ARGB channel by the corresponding channel of the tint color, as <code>PApplet.tint</code>.
+     *
+     * @param color tint color, as ARGB
+     * @return a new frame transform that also tints by the specified color
+     */
+    public FrameTransform tint(final int color)
+    {
+        final int ta = (color >>> 24) & 0xff;
+        final int tr = (color >> 16) & 0xff;
+        final int tg = (color >> 8) & 0xff;
+        final int tb = color & 0xff;
+        return append(new Step()
+            {
+                @Override
+                PImage apply(final PImage image)
+                {
+                    int[] source = Pixels.argb(image);
+                    PImage tinted = new PImage(image.width, image.height, PImage.ARGB);
+                    int[] target = tinted.pixels;
+                    for (int i = 0; i < source.length; i++)
+                    {
+                        int pixel = source[i];
+                        target[i] = (multiply((pixel >>> 24) & 0xff, ta) << 24)
+                            | (multiply((pixel >> 16) & 0xff, tr) << 16)
+                            | (multiply((pixel >> 8) & 0xff, tg) << 8)
+                            | multiply(pixel & 0xff, tb);
+                    }
+                    return tinted;
+                }
+            });
+    }
+
+    /**
+     * Return a new frame transform that applies this frame transform and then the specified frame transform.
+     *
+     * @param next frame transform to apply after this one, must not be null
+     * @return a new frame transform that applies this frame transform and then the specified frame transform
+     */
+    public FrameTransform then(final FrameTransform next)
+    {
+        if (next == null)
+        {
+            throw new NullPointerException("next must not be null");
+        }
+        Step[] combined = Arrays.copyOf(steps, steps.length + next.steps.length);
+        System.arraycopy(next.steps, 0, combined, steps.length, next.steps.length);
+        return new FrameTransform(combined);
+    }
+
+    /**
+     * Return true if this frame transform is the identity.
+     *
+     * @return true if this frame transform is the identity
+     */
+    public boolean isIdentity()
+    {
+        return steps.length == 0;
+    }
+
+    /**
+     * Apply this frame transform to the specified image, returning a new image.
+     * The specified image is not modified.
+     *
+     * @param image image
+     * @return the specified image transformed into a new image, or the specified
+     *    image if this frame transform is the identity
+     */
+    PImage apply(final PImage image)
+    {
+        PImage result = image;
+        for (Step step : steps)
+        {
+            result = step.apply(result);
+        }
+        if (result != image)
+        {
+            result.updatePixels();
+        }
+        return result;
+    }
+
+    private FrameTransform append(final Step step)
+    {
+        Step[] appended = Arrays.copyOf(steps, steps.length + 1);
+        appended[steps.length] = step;
+        return new FrameTransform(appended);
+    }
+
+    private static int multiply(final int channel, final int tint)
+    {
+        return (channel * tint + 127) / 255;
+    }
+
+    /**
+     * Frame transform step.
+     */
+    private abstract static class Step
+    {
+
+        /**
+         * Apply this step to the specified image, returning a new ARGB image.
+         *
+         * @param image image
+         * @return the specified image transformed into a new ARGB image
+         */
+        abstract PImage apply(PImage image);
+    }
+}
@@ -22,21 +22,37 @@
 */
 package org.dishevelled.processing.frames;
 
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 
-import java.awt.geom.AffineTransform;
-
-import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
 
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import java.util.stream.IntStream;
+
 import processing.core.PApplet;
 import processing.core.PImage;
 
+import processing.data.JSONObject;
+
 /**
  * Frames.
  *
@@ -44,8 +60,26 @@ import processing.core.PImage;
  */
 public final class Frames
 {
-    /** Applet for this frames library. */
-    private final PApplet applet;
+    /** Image source for this frames library. */
+    private final ImageSource source;
+
+    /** Frames metrics. */
+    private final FramesMetrics metrics = FramesMetrics.getInstance();
+
+    /** Cache of frame images loaded by this frames library. */
+    private final FrameCache cache = new FrameCache();
+
+    /** Deduplicator shared by frame lists deduplicated by this frames library. */
+    private final FrameDeduplicator deduplicator = new FrameDeduplicator();
+
+    /** Executor service for loading frame images asynchronously, created lazily. */
+    private ExecutorService executor;
+
+    /** Minimum number of frame images to process in parallel. */
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    /** Number of threads for loading frame images asynchronously. */
+    private static final int LOADER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
 
 
     /**
@@ -55,8 +89,21 @@ public final class Frames
      */
     public Frames(final PApplet applet)
     {
-        checkNotNull(applet, "applet must not be null");
-        this.applet = applet;
+        this(ImageSources.createAppletSource(applet));
+        applet.registerMethod("dispose", this);
+    }
+
+    /**
+     * Create a new frames library for the specified image source.  Frames libraries
+     * created without an applet should be disposed explicitly when no longer needed.
+     *
+     * @since 1.2
+     * @param source image source, must not be null
+     */
+    public Frames(final ImageSource source)
+    {
+        checkNotNull(source, "source must not be null");
+        this.source = source;
     }
 
     /**
@@ -68,7 +115,7 @@ public final class Frames
     public SingleFrameAnimation createAnimation(final String imageName)
     {
         checkNotNull(imageName, "imageName must not be null");
-        return createAnimation(applet.loadImage(imageName));
+        return createAnimation(loadImage(imageName));
     }
 
     /**
@@ -113,6 +160,118 @@ public final class Frames
         return createLoopedAnimation(createFrameList(baseImage, suffix, frames));
     }
 
+    /**
+     * Create and return a new progressive multiple frames animation containing all the frame images
+     * in the specified asynchronous frame list.  Waits for the first frame image to be loaded, and
+     * then plays the frame images in order as they become available.
+     *
+     * @since 1.2
+     * @param frames asynchronous frame list, must not be null
+     * @return a new progressive multiple frames animation containing all the frame images
+     *    in the specified asynchronous frame list
+     * @throws IllegalStateException if loading the first frame image failed, was cancelled,
+     *    or was interrupted
+     */
+    public ProgressiveFramesAnimation createAnimation(final AsyncFrameList frames)
+    {
+        checkNotNull(frames, "frames must not be null");
+        awaitFirstFrame(frames);
+        return new ProgressiveFramesAnimation(frames, false);
+    }
+
+    /**
+     * Create and return a new progressive looped frames animation containing all the frame images
+     * in the specified asynchronous frame list.  Waits for the first frame image to be loaded, and
+     * then plays the frame images in order as they become available.
+     *
+     * @since 1.2
+     * @param frames asynchronous frame list, must not be null
+     * @return a new progressive looped frames animation containing all the frame images
+     *    in the specified asynchronous frame list
+     * @throws IllegalStateException if loading the first frame image failed, was cancelled,
+     *    or was interrupted
+     */
+    public ProgressiveFramesAnimation createLoopedAnimation(final AsyncFrameList frames)
+    {
+        checkNotNull(frames, "frames must not be null");
+        awaitFirstFrame(frames);
+        return new ProgressiveFramesAnimation(frames, true);
+    }
+
+    /**
+     * Create and return a new progressive multiple frames animation containing all the frame images
+     * specified from <code>baseImage</code>, loaded asynchronously.
+     *
+     * @since 1.2
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @return a new progressive multiple frames animation containing all the frame images
+     *    specified from <code>baseImage</code>
+     */
+    public ProgressiveFramesAnimation createAsyncAnimation(final String baseImage, final String suffix, final int frames)
+    {
+        return createAnimation(loadFrameList(baseImage, suffix, frames));
+    }
+
+    /**
+     * Create and return a new progressive looped frames animation containing all the frame images
+     * specified from <code>baseImage</code>, loaded asynchronously.
+     *
+     * @since 1.2
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @return a new progressive looped frames animation containing all the frame images
+     *    specified from <code>baseImage</code>
+     */
+    public ProgressiveFramesAnimation createAsyncLoopedAnimation(final String baseImage, final String suffix, final int frames)
+    {
+        return createLoopedAnimation(loadFrameList(baseImage, suffix, frames));
+    }
+
+    /**
+     * Create and return a new streaming multiple frames animation for all the frame images
+     * specified from <code>baseImage</code>.  Frame images are decoded by background threads
+     * at most <code>lookAhead</code> frames ahead of the current frame and released once behind it,
+     * bypassing the cache, so that memory use is bounded regardless of the number of frames.
+     *
+     * @since 1.2
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @param lookAhead number of frames to decode ahead of the current frame, must be at least one
+     * @return a new streaming multiple frames animation for all the frame images
+     *    specified from <code>baseImage</code>
+     * @throws IllegalStateException if the first frame image could not be loaded
+     */
+    public StreamingFramesAnimation createStreamingAnimation(final String baseImage, final String suffix,
+                                                              final int frames, final int lookAhead)
+    {
+        return new StreamingFramesAnimation(frames, lookAhead, false, frameLoader(baseImage, suffix, frames), getExecutor());
+    }
+
+    /**
+     * Create and return a new streaming looped frames animation for all the frame images
+     * specified from <code>baseImage</code>.  Frame images are decoded by background threads
+     * at most <code>lookAhead</code> frames ahead of the current frame and released once behind it,
+     * bypassing the cache, so that memory use is bounded regardless of the number of frames.
+     *
+     * @since 1.2
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @param lookAhead number of frames to decode ahead of the current frame, must be at least one
+     * @return a new streaming looped frames animation for all the frame images
+     *    specified from <code>baseImage</code>
+     * @throws IllegalStateException if the first frame image could not be loaded
+     */
+    public StreamingFramesAnimation createLoopedStreamingAnimation(final String baseImage, final String suffix,
+                                                              final int frames, final int lookAhead)
+    {
+        return new StreamingFramesAnimation(frames, lookAhead, true, frameLoader(baseImage, suffix, frames), getExecutor());
+    }
+
     /**
      * Create and return a new multiple frames animation containing all the frame images
      * from <code>spriteSheet</code> as specified by the starting location <code>(x, y)</code>
@@ -132,7 +291,7 @@ public final class Frames
                                                    final int width, final int height, final int frames)
     {
         checkNotNull(spriteSheet, "spriteSheet must not be null");
-        return createAnimation(applet.loadImage(spriteSheet), x, y, width, height, frames);
+        return createAnimation(createFrameList(spriteSheet, x, y, width, height, frames));
     }
 
     /**
@@ -175,7 +334,7 @@ public final class Frames
                                                        final int width, final int height, final int frames)
     {
         checkNotNull(spriteSheet, "spriteSheet must not be null");
-        return createLoopedAnimation(applet.loadImage(spriteSheet), x, y, width, height, frames);
+        return createLoopedAnimation(createFrameList(spriteSheet, x, y, width, height, frames));
     }
 
     /**
@@ -249,6 +408,335 @@ public final class Frames
         return createLoopedAnimation(Arrays.asList(images));
     }
 
+    /**
+     * Create and return a new immutable frame store containing the specified frame images.
+     * Animations created from a frame store share it rather than copying it.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @return a new immutable frame store containing the specified frame images
+     */
+    public FrameStore createFrameStore(final List<PImage> images)
+    {
+        return new FrameStore(images);
+    }
+
+    /**
+     * Create and return a new immutable frame store containing the specified frame images.
+     * Animations created from a frame store share it rather than copying it.
+     *
+     * @since 1.2
+     * @param images one or more frame images, must not be null or empty
+     * @return a new immutable frame store containing the specified frame images
+     */
+    public FrameStore createFrameStore(final PImage... images)
+    {
+        checkNotNull(images, "images must not be null");
+        return createFrameStore(Arrays.asList(images));
+    }
+
+    /**
+     * Create and return a new animation that plays the specified frame store through
+     * the specified playback mode.
+     *
+     * @since 1.2
+     * @param frames frame store, must not be null
+     * @param playback playback mode, must not be null
+     * @return a new animation that plays the specified frame store through the specified
+     *    playback mode
+     */
+    public MappedFramesAnimation createAnimation(final FrameStore frames, final Playback playback)
+    {
+        return new MappedFramesAnimation(frames, playback);
+    }
+
+    /**
+     * Create and return a new timed frames animation containing the specified frame images,
+     * each with the same duration.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null
+     * @param duration frame duration in milliseconds, must be at least one
+     * @return a new timed frames animation containing the specified frame images
+     */
+    public TimedFramesAnimation createTimedAnimation(final List<PImage> images, final int duration)
+    {
+        checkNotNull(images, "images must not be null");
+        int[] durations = new int[images.size()];
+        Arrays.fill(durations, duration);
+        return new TimedFramesAnimation(images, durations, false);
+    }
+
+    /**
+     * Create and return a new timed frames animation containing the specified frame images
+     * and frame durations.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null
+     * @param durations frame durations in milliseconds, must not be null, must be the same
+     *    size as <code>images</code>, and each must be at least one
+     * @return a new timed frames animation containing the specified frame images
+     *    and frame durations
+     */
+    public TimedFramesAnimation createTimedAnimation(final List<PImage> images, final int... durations)
+    {
+        checkNotNull(images, "images must not be null");
+        checkNotNull(durations, "durations must not be null");
+        return new TimedFramesAnimation(images, durations.clone(), false);
+    }
+
+    /**
+     * Create and return a new looped timed frames animation containing the specified frame images,
+     * each with the same duration.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null
+     * @param duration frame duration in milliseconds, must be at least one
+     * @return a new looped timed frames animation containing the specified frame images
+     */
+    public TimedFramesAnimation createLoopedTimedAnimation(final List<PImage> images, final int duration)
+    {
+        checkNotNull(images, "images must not be null");
+        int[] durations = new int[images.size()];
+        Arrays.fill(durations, duration);
+        return new TimedFramesAnimation(images, durations, true);
+    }
+
+    /**
+     * Create and return a new looped timed frames animation containing the specified frame images
+     * and frame durations.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null
+     * @param durations frame durations in milliseconds, must not be null, must be the same
+     *    size as <code>images</code>, and each must be at least one
+     * @return a new looped timed frames animation containing the specified frame images
+     *    and frame durations
+     */
+    public TimedFramesAnimation createLoopedTimedAnimation(final List<PImage> images, final int... durations)
+    {
+        checkNotNull(images, "images must not be null");
+        checkNotNull(durations, "durations must not be null");
+        return new TimedFramesAnimation(images, durations.clone(), true);
+    }
+
+    /**
+     * Create and return new palette-indexed frames from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty, and must contain
+     *    at most <code>IndexedFrames.MAX_PALETTE_SIZE</code> distinct colors in total
+     * @return new palette-indexed frames from the specified list of frame images
+     */
+    public IndexedFrames createIndexedFrames(final List<PImage> images)
+    {
+        return new IndexedFrames(images);
+    }
+
+    /**
+     * Create and return a new palette-indexed animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty, and must contain
+     *    at most <code>IndexedFrames.MAX_PALETTE_SIZE</code> distinct colors in total
+     * @return a new palette-indexed animation from the specified list of frame images
+     */
+    public PaletteFramesAnimation createPaletteAnimation(final List<PImage> images)
+    {
+        return createPaletteAnimation(createIndexedFrames(images));
+    }
+
+    /**
+     * Create and return a new palette-indexed animation from the specified indexed frames.
+     *
+     * @since 1.2
+     * @param frames palette-indexed frames, must not be null
+     * @return a new palette-indexed animation from the specified indexed frames
+     */
+    public PaletteFramesAnimation createPaletteAnimation(final IndexedFrames frames)
+    {
+        return new PaletteFramesAnimation(frames, false);
+    }
+
+    /**
+     * Create and return a new looped palette-indexed animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty, and must contain
+     *    at most <code>IndexedFrames.MAX_PALETTE_SIZE</code> distinct colors in total
+     * @return a new looped palette-indexed animation from the specified list of frame images
+     */
+    public PaletteFramesAnimation createLoopedPaletteAnimation(final List<PImage> images)
+    {
+        return createLoopedPaletteAnimation(createIndexedFrames(images));
+    }
+
+    /**
+     * Create and return a new looped palette-indexed animation from the specified indexed frames.
+     *
+     * @since 1.2
+     * @param frames palette-indexed frames, must not be null
+     * @return a new looped palette-indexed animation from the specified indexed frames
+     */
+    public PaletteFramesAnimation createLoopedPaletteAnimation(final IndexedFrames frames)
+    {
+        return new PaletteFramesAnimation(frames, true);
+    }
+
+    /**
+     * Create and return a new concurrent animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @return a new concurrent animation from the specified list of frame images
+     */
+    public ConcurrentFramesAnimation createConcurrentAnimation(final List<PImage> images)
+    {
+        return new ConcurrentFramesAnimation(images, false, false);
+    }
+
+    /**
+     * Create and return a new looped concurrent animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @return a new looped concurrent animation from the specified list of frame images
+     */
+    public ConcurrentFramesAnimation createLoopedConcurrentAnimation(final List<PImage> images)
+    {
+        return new ConcurrentFramesAnimation(images, true, false);
+    }
+
+    /**
+     * Create and return a new double-buffered concurrent animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @return a new double-buffered concurrent animation from the specified list of frame images
+     */
+    public ConcurrentFramesAnimation createDoubleBufferedAnimation(final List<PImage> images)
+    {
+        return new ConcurrentFramesAnimation(images, false, true);
+    }
+
+    /**
+     * Create and return a new looped double-buffered concurrent animation from the specified list of frame images.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @return a new looped double-buffered concurrent animation from the specified list of frame images
+     */
+    public ConcurrentFramesAnimation createLoopedDoubleBufferedAnimation(final List<PImage> images)
+    {
+        return new ConcurrentFramesAnimation(images, true, true);
+    }
+
+    /**
+     * Create and return a new frame pyramid of the specified frame images, upscaling
+     * with nearest neighbour sampling.  Levels are built in parallel.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @param downLevels number of levels downsampled by half per level, must be at least zero
+     * @param upLevels number of levels upscaled by two per level, must be at least zero
+     * @return a new frame pyramid of the specified frame images
+     */
+    public FramePyramid createFramePyramid(final List<PImage> images, final int downLevels, final int upLevels)
+    {
+        return createFramePyramid(images, downLevels, upLevels, FramePyramid.Upscale.NEAREST);
+    }
+
+    /**
+     * Create and return a new frame pyramid of the specified frame images.  Levels are
+     * built in parallel.
+     *
+     * @since 1.2
+     * @param images list of frame images, must not be null or empty
+     * @param downLevels number of levels downsampled by half per level, must be at least zero
+     * @param upLevels number of levels upscaled by two per level, must be at least zero
+     * @param upscale upscale algorithm, must not be null
+     * @return a new frame pyramid of the specified frame images
+     */
+    public FramePyramid createFramePyramid(final List<PImage> images, final int downLevels, final int upLevels,
+                                           final FramePyramid.Upscale upscale)
+    {
+        return new FramePyramid(images, downLevels, upLevels, upscale);
+    }
+
+    /**
+     * Create and return a new pyramid animation of the specified frame pyramid.
+     *
+     * @since 1.2
+     * @param pyramid frame pyramid, must not be null
+     * @return a new pyramid animation of the specified frame pyramid
+     */
+    public PyramidAnimation createPyramidAnimation(final FramePyramid pyramid)
+    {
+        return new PyramidAnimation(pyramid, false);
+    }
+
+    /**
+     * Create and return a new looped pyramid animation of the specified frame pyramid.
+     *
+     * @since 1.2
+     * @param pyramid frame pyramid, must not be null
+     * @return a new looped pyramid animation of the specified frame pyramid
+     */
+    public PyramidAnimation createLoopedPyramidAnimation(final FramePyramid pyramid)
+    {
+        return new PyramidAnimation(pyramid, true);
+    }
+
+    /**
+     * Create and return a new empty sprite batch, for drawing many animations per frame
+     * grouped by backing texture.
+     *
+     * @since 1.2
+     * @return a new empty sprite batch
+     */
+    public SpriteBatch createSpriteBatch()
+    {
+        return new SpriteBatch();
+    }
+
+    /**
+     * Create and return a new empty animation group.
+     *
+     * @since 1.2
+     * @return a new empty animation group
+     */
+    public AnimationGroup createAnimationGroup()
+    {
+        return new AnimationGroup();
+    }
+
+    /**
+     * Create and return a new compositor that redraws only dirty rectangles over the
+     * specified background image.
+     *
+     * @since 1.2
+     * @param background background image, the same size as the canvas, must not be null
+     * @return a new compositor that redraws only dirty rectangles over the specified background image
+     */
+    public Compositor createCompositor(final PImage background)
+    {
+        checkNotNull(background, "background must not be null");
+        return new Compositor(background);
+    }
+
+    /**
+     * Create and return a new compositor that redraws only dirty rectangles over the
+     * specified background color.
+     *
+     * @since 1.2
+     * @param backgroundColor background color
+     * @return a new compositor that redraws only dirty rectangles over the specified background color
+     */
+    public Compositor createCompositor(final int backgroundColor)
+    {
+        return new Compositor(backgroundColor);
+    }
+
     /**
      * Create and return a new list of frame images containing all the frame images
      * specified from <code>baseImage</code>.
@@ -266,21 +754,69 @@ public final class Frames
         if (frames < 1) {
             throw new IllegalArgumentException("frames must be at least 1");
         }
-        int leadingZeros = (int) (frames / 10) + 1; // is this math correct?
-        String format = "%s%0" + leadingZeros + "d%s";
         List<PImage> images = new ArrayList<PImage>(frames);
         for (int frame = 0; frame < frames; frame++)
         {
-            PImage image = applet.loadImage(String.format(format, new Object[] { baseImage, frame, suffix }));
+            PImage image = loadImage(frameName(baseImage, suffix, frame, frames));
             images.add(image);
         }
-        return Collections.unmodifiableList(images);
+        return new CachedFrames(images);
+    }
+
+    /**
+     * Start loading all the frame images specified from <code>baseImage</code> asynchronously
+     * and return a new asynchronous frame list that may be polled or waited on for them.  Frame
+     * images are loaded in parallel by a bounded pool of worker threads, roughly in order.
+     *
+     * @since 1.2
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @return a new asynchronous frame list for all the frame images
+     *    specified from <code>baseImage</code>
+     */
+    public AsyncFrameList loadFrameList(final String baseImage, final String suffix, final int frames)
+    {
+        checkNotNull(baseImage, "baseImage must not be null");
+        checkNotNull(suffix, "suffix must not be null");
+        if (frames < 1) {
+            throw new IllegalArgumentException("frames must be at least 1");
+        }
+        final AsyncFrameList frameList = new AsyncFrameList(frames);
+        ExecutorService executor = getExecutor();
+        for (int frame = 0; frame < frames; frame++)
+        {
+            final int index = frame;
+            final String imageName = frameName(baseImage, suffix, frame, frames);
+            frameList.addTask(executor.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            PImage image = loadImage(imageName);
+                            if (image == null)
+                            {
+                                throw new IllegalStateException("could not load image " + imageName);
+                            }
+                            frameList.set(index, image);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            frameList.fail(index, e);
+                        }
+                    }
+                }));
+        }
+        return frameList;
     }
 
     /**
      * Create and return a new list of frame images containing all the frame images
      * from <code>spriteSheet</code> as specified by the starting location <code>(x, y)</code>
-     * and read horizontally the specified number of frames.
+     * and read horizontally the specified number of frames.  The sliced frame images are
+     * cached and shared between callers, but the sprite sheet image itself is not kept in the cache.
      *
      * @param spriteSheet sprite sheet image name, must not be null
      * @param x starting location x
@@ -296,7 +832,16 @@ public final class Frames
                                         final int width, final int height, final int frames)
     {
         checkNotNull(spriteSheet, "spriteSheet must not be null");
-        return createFrameList(applet.loadImage(spriteSheet), x, y, width, height, frames);
+        String key = "sheet:" + spriteSheet + ":" + x + "," + y + "," + width + "," + height + "," + frames;
+        // slice a decoded sheet not held by the cache, so that only the slices stay resident
+        return cache.computeIfAbsent(key, new Function<String, List<PImage>>()
+            {
+                @Override
+                public List<PImage> apply(final String key)
+                {
+                    return new CachedFrames(createFrameList(decode(spriteSheet), x, y, width, height, frames));
+                }
+            });
     }
 
     /**
@@ -337,21 +882,218 @@ public final class Frames
         for (int frame = 0; frame < frames; frame++)
         {
             PImage subimage = spriteSheet.get(x + (frame * width), y, width, height);
-            images.add(subimage);
+            images.add(metrics.track(subimage));
         }
         return Collections.unmodifiableList(images);
     }
 
     /**
-     * Create and return a sprite sheet image with the specified list of frame images.
+     * Create and return a new list of regions of <code>spriteSheet</code> as specified by the
+     * starting location <code>(x, y)</code> and read horizontally the specified number of frames.
+     * Regions share <code>spriteSheet</code> instead of copying its pixels.
      *
-     * @param frameImages list of frame images, must not be null
-     * @return a sprite sheet images with the specified list of frame images
-     */
-    public PImage createSpriteSheet(final List<PImage> frameImages)
-    {
-        checkNotNull(frameImages, "frameImages must not be null");
-        int width = 0;
+     * @since 1.2
+     * @param spriteSheet sprite sheet image, must not be null
+     * @param x starting location x
+     * @param y starting location y
+     * @param width frame width
+     * @param height frame height
+     * @param frames number of frames
+     * @return a new list of regions of <code>spriteSheet</code> as specified by the
+     *    starting location <code>(x, y)</code> and read horizontally the specified number of frames
+     */
+    public List<Region> createRegionList(final PImage spriteSheet, final int x, final int y,
+                                         final int width, final int height, final int frames)
+    {
+        checkNotNull(spriteSheet, "spriteSheet must not be null");
+        if (frames < 1) {
+            throw new IllegalArgumentException("frames must be at least 1");
+        }
+        List<Region> regions = new ArrayList<Region>(frames);
+        for (int frame = 0; frame < frames; frame++)
+        {
+            regions.add(new Region(spriteSheet, x + (frame * width), y, width, height));
+        }
+        return Collections.unmodifiableList(regions);
+    }
+
+    /**
+     * Create and return a new region animation of <code>spriteSheet</code> as specified by the
+     * starting location <code>(x, y)</code> and read horizontally the specified number of frames.
+     *
+     * @since 1.2
+     * @param spriteSheet sprite sheet image name, must not be null
+     * @param x starting location x
+     * @param y starting location y
+     * @param width frame width
+     * @param height frame height
+     * @param frames number of frames
+     * @return a new region animation of <code>spriteSheet</code> as specified by the
+     *    starting location <code>(x, y)</code> and read horizontally the specified number of frames
+     */
+    public RegionAnimation createRegionAnimation(final String spriteSheet, final int x, final int y,
+                                                 final int width, final int height, final int frames)
+    {
+        checkNotNull(spriteSheet, "spriteSheet must not be null");
+        return createRegionAnimation(loadImage(spriteSheet), x, y, width, height, frames);
+    }
+
+    /**
+     * Create and return a new region animation of <code>spriteSheet</code> as specified by the
+     * starting location <code>(x, y)</code> and read horizontally the specified number of frames.
+     *
+     * @since 1.2
+     * @param spriteSheet sprite sheet image, must not be null
+     * @param x starting location x
+     * @param y starting location y
+     * @param width frame width
+     * @param height frame height
+     * @param frames number of frames
+     * @return a new region animation of <code>spriteSheet</code> as specified by the
+     *    starting location <code>(x, y)</code> and read horizontally the specified number of frames
+     */
+    public RegionAnimation createRegionAnimation(final PImage spriteSheet, final int x, final int y,
+                                                 final int width, final int height, final int frames)
+    {
+        return createRegionAnimation(createRegionList(spriteSheet, x, y, width, height, frames));
+    }
+
+    /**
+     * Create and return a new looped region animation of <code>spriteSheet</code> as specified by the
+     * starting location <code>(x, y)</code> and read horizontally the specified number of frames.
+     *
+     * @since 1.2
+     * @param spriteSheet sprite sheet image name, must not be null
+     * @param x starting location x
+     * @param y starting location y
+     * @param width frame width
+     * @param height frame height
+     * @param frames number of frames
+     * @return a new looped region animation of <code>spriteSheet</code> as specified by the
+     *    starting location <code>(x, y)</code> and read horizontally the specified number of frames
+     */
+    public RegionAnimation createLoopedRegionAnimation(final String spriteSheet, final int x, final int y,
+                                                       final int width, final int height, final int frames)
+    {
+        checkNotNull(spriteSheet, "spriteSheet must not be null");
+        return createLoopedRegionAnimation(loadImage(spriteSheet), x, y, width, height, frames);
+    }
+
+    /**
+     * Create and return a new looped region animation of <code>spriteSheet</code> as specified by the
+     * starting location <code>(x, y)</code> and read horizontally the specified number of frames.
+     *
+     * @since 1.2
+     * @param spriteSheet sprite sheet image, must not be null
+     * @param x starting location x
+     * @param y starting location y
+     * @param width frame width
+     * @param height frame height
+     * @param frames number of frames
+     * @return a new looped region animation of <code>spriteSheet</code> as specified by the
+     *    starting location <code>(x, y)</code> and read horizontally the specified number of frames
+     */
+    public RegionAnimation createLoopedRegionAnimation(final PImage spriteSheet, final int x, final int y,
+                                                       final int width, final int height, final int frames)
+    {
+        return createLoopedRegionAnimation(createRegionList(spriteSheet, x, y, width, height, frames));
+    }
+
+    /**
+     * Create and return a new region animation containing the specified regions.
+     *
+     * @since 1.2
+     * @param regions list of regions, must not be null
+     * @return a new region animation containing the specified regions
+     */
+    public RegionAnimation createRegionAnimation(final List<Region> regions)
+    {
+        checkNotNull(regions, "regions must not be null");
+        return new RegionAnimation(regions, false);
+    }
+
+    /**
+     * Create and return a new looped region animation containing the specified regions.
+     *
+     * @since 1.2
+     * @param regions list of regions, must not be null
+     * @return a new looped region animation containing the specified regions
+     */
+    public RegionAnimation createLoopedRegionAnimation(final List<Region> regions)
+    {
+        checkNotNull(regions, "regions must not be null");
+        return new RegionAnimation(regions, true);
+    }
+
+    /**
+     * Load and return a new sprite sheet for the specified sheet image, for slicing by grid.
+     * The sheet image is decoded once and shared through the cache.
+     *
+     * @since 1.2
+     * @param imageName sheet image file or URL name, must not be null
+     * @return a new sprite sheet for the specified sheet image
+     */
+    public SpriteSheet loadSpriteSheet(final String imageName)
+    {
+        checkNotNull(imageName, "imageName must not be null");
+        return new SpriteSheet(loadImage(imageName), null);
+    }
+
+    /**
+     * Load and return a new sprite sheet for the specified sheet image and TexturePacker
+     * or Aseprite JSON metadata.  The sheet image is decoded once and shared through the cache.
+     *
+     * @since 1.2
+     * @param imageName sheet image file or URL name, must not be null
+     * @param metadataName JSON metadata file or URL name, must not be null
+     * @return a new sprite sheet for the specified sheet image and JSON metadata
+     */
+    public SpriteSheet loadSpriteSheet(final String imageName, final String metadataName)
+    {
+        checkNotNull(imageName, "imageName must not be null");
+        checkNotNull(metadataName, "metadataName must not be null");
+        return new SpriteSheet(loadImage(imageName), loadJSONObject(metadataName));
+    }
+
+    /**
+     * Create and return a new sprite sheet index for the specified sheet image and TexturePacker
+     * or Aseprite JSON metadata, if any.  Unlike {@link #createSpriteSheet(List)}, this does not
+     * compose a new sheet image.
+     *
+     * @since 1.2
+     * @param image sheet image, must not be null
+     * @param metadata JSON metadata, if any
+     * @return a new sprite sheet index for the specified sheet image and JSON metadata
+     */
+    public SpriteSheet createSpriteSheetIndex(final PImage image, final JSONObject metadata)
+    {
+        checkNotNull(image, "image must not be null");
+        return new SpriteSheet(image, metadata);
+    }
+
+    /**
+     * Create and return a new texture atlas builder, for packing many frame images
+     * into a few page images.
+     *
+     * @since 1.2
+     * @return a new texture atlas builder
+     */
+    public TextureAtlasBuilder createTextureAtlasBuilder()
+    {
+        return new TextureAtlasBuilder();
+    }
+
+    /**
+     * Create and return a sprite sheet image with the specified list of frame images.
+     *
+     * @param frameImages list of frame images, must not be null
+     * @return a sprite sheet images with the specified list of frame images
+     */
+    public PImage createSpriteSheet(final List<PImage> frameImages)
+    {
+        checkNotNull(frameImages, "frameImages must not be null");
+        long start = System.nanoTime();
+        int width = 0;
         int height = 0;
         for (PImage image : frameImages)
         {
@@ -364,18 +1106,25 @@ public final class Frames
                 height = image.height;
             }
         }
-        BufferedImage spriteSheet = new BufferedImage(width * frameImages.size(), height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = spriteSheet.createGraphics();
-        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        for (int i = 0, size = frameImages.size(); i < size; i++)
-        {
-            PImage image = frameImages.get(i);
-            int x = width * i + (width / 2) - (image.width / 2);
-            int y = (height / 2) - (image.height / 2);
-            graphics.drawImage(image.getImage(), x, y, null);
-        }
-        graphics.dispose();
-        return new PImage(spriteSheet);
+        final PImage sheet = new PImage(width * frameImages.size(), height, PImage.ARGB);
+        final PImage[] images = frameImages.toArray(new PImage[frameImages.size()]);
+        final int frameWidth = width;
+        final int frameHeight = height;
+        forEach(images.length, new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    PImage image = images[i];
+                    int x = frameWidth * i + (frameWidth / 2) - (image.width / 2);
+                    int y = (frameHeight / 2) - (image.height / 2);
+                    Pixels.blit(Pixels.argb(image), image.width, 0, 0, image.width, image.height, sheet.pixels, sheet.width, x, y);
+                }
+            });
+        sheet.updatePixels();
+        metrics.track(sheet);
+        metrics.recordTransform("createSpriteSheet", System.nanoTime() - start);
+        return sheet;
     }
 
     /**
@@ -415,15 +1164,35 @@ public final class Frames
     public PImage flipHorizontally(final PImage image)
     {
         checkNotNull(image, "image must not be null");
+        long start = System.nanoTime();
         PImage flipped = new PImage(image.width, image.height, PImage.ARGB);
-        for (int i = 0; i < image.width; i++)
-        {
-            for (int j = 0; j < image.height; j++)
-            {
-                flipped.set(image.width - 1 - i, j, image.get(i, j));
-            }
-        }
-        return flipped;
+        Pixels.flipHorizontally(Pixels.argb(image), flipped.pixels, image.width, image.height);
+        flipped.updatePixels();
+        metrics.recordTransform("flipHorizontally", System.nanoTime() - start);
+        return metrics.track(flipped);
+    }
+
+    /**
+     * Flip the specified image horizontally in place.  Images loaded through the frame cache
+     * are shared with other callers and may not be flipped in place; use
+     * {@link #flipHorizontally(PImage)} instead.  Images shared by deduplication should not
+     * be flipped in place either.
+     *
+     * @since 1.2
+     * @param image image, must not be null
+     * @return the specified image, flipped horizontally in place
+     * @throws IllegalArgumentException if <code>image</code> was loaded through the frame cache
+     */
+    public PImage flipHorizontallyInPlace(final PImage image)
+    {
+        checkNotNull(image, "image must not be null");
+        checkNotShared(image);
+        long start = System.nanoTime();
+        image.loadPixels();
+        Pixels.flipHorizontally(image.pixels, image.width, image.height);
+        image.updatePixels();
+        metrics.recordTransform("flipHorizontallyInPlace", System.nanoTime() - start);
+        return image;
     }
 
     /**
@@ -435,12 +1204,45 @@ public final class Frames
     public List<PImage> flipHorizontally(final List<PImage> frameImages)
     {
         checkNotNull(frameImages, "frameImages must not be null");
-        List<PImage> flippedFrames = new ArrayList<PImage>(frameImages.size());
-        for (PImage frame : frameImages)
+        final PImage[] flippedFrames = frameImages.toArray(new PImage[frameImages.size()]);
+        forEach(flippedFrames.length, new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    flippedFrames[i] = flipHorizontally(flippedFrames[i]);
+                }
+            });
+        return new ArrayList<PImage>(Arrays.asList(flippedFrames));
+    }
+
+    /**
+     * Flip the specified frame images horizontally in place.
+     *
+     * @since 1.2
+     * @param frameImages list of frame images, must not be null
+     * @return the specified frame images, flipped horizontally in place
+     * @throws IllegalArgumentException if any of <code>frameImages</code> were loaded through the frame cache,
+     *    in which case none are flipped
+     */
+    public List<PImage> flipHorizontallyInPlace(final List<PImage> frameImages)
+    {
+        checkNotNull(frameImages, "frameImages must not be null");
+        final PImage[] frames = frameImages.toArray(new PImage[frameImages.size()]);
+        for (PImage frame : frames)
         {
-            flippedFrames.add(flipHorizontally(frame));
+            checkNotNull(frame, "frameImages must not contain null images");
+            checkNotShared(frame);
         }
-        return flippedFrames;
+        forEach(frames.length, new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    flipHorizontallyInPlace(frames[i]);
+                }
+            });
+        return frameImages;
     }
 
     /**
@@ -465,15 +1267,35 @@ public final class Frames
     public PImage flipVertically(final PImage image)
     {
         checkNotNull(image, "image must not be null");
+        long start = System.nanoTime();
         PImage flipped = new PImage(image.width, image.height, PImage.ARGB);
-        for (int i = 0; i < image.width; i++)
-        {
-            for (int j = 0; j < image.height; j++)
-            {
-                flipped.set(i, image.height - 1 - j, image.get(i, j));
-            }
-        }
-        return flipped;
+        Pixels.flipVertically(Pixels.argb(image), flipped.pixels, image.width, image.height);
+        flipped.updatePixels();
+        metrics.recordTransform("flipVertically", System.nanoTime() - start);
+        return metrics.track(flipped);
+    }
+
+    /**
+     * Flip the specified image vertically in place.  Images loaded through the frame cache
+     * are shared with other callers and may not be flipped in place; use
+     * {@link #flipVertically(PImage)} instead.  Images shared by deduplication should not
+     * be flipped in place either.
+     *
+     * @since 1.2
+     * @param image image, must not be null
+     * @return the specified image, flipped vertically in place
+     * @throws IllegalArgumentException if <code>image</code> was loaded through the frame cache
+     */
+    public PImage flipVerticallyInPlace(final PImage image)
+    {
+        checkNotNull(image, "image must not be null");
+        checkNotShared(image);
+        long start = System.nanoTime();
+        image.loadPixels();
+        Pixels.flipVertically(image.pixels, image.width, image.height);
+        image.updatePixels();
+        metrics.recordTransform("flipVerticallyInPlace", System.nanoTime() - start);
+        return image;
     }
 
     /**
@@ -485,12 +1307,45 @@ public final class Frames
     public List<PImage> flipVertically(final List<PImage> frameImages)
     {
         checkNotNull(frameImages, "frameImages must not be null");
-        List<PImage> flippedFrames = new ArrayList<PImage>(frameImages.size());
-        for (PImage frame : frameImages)
+        final PImage[] flippedFrames = frameImages.toArray(new PImage[frameImages.size()]);
+        forEach(flippedFrames.length, new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    flippedFrames[i] = flipVertically(flippedFrames[i]);
+                }
+            });
+        return new ArrayList<PImage>(Arrays.asList(flippedFrames));
+    }
+
+    /**
+     * Flip the specified frame images vertically in place.
+     *
+     * @since 1.2
+     * @param frameImages list of frame images, must not be null
+     * @return the specified frame images, flipped vertically in place
+     * @throws IllegalArgumentException if any of <code>frameImages</code> were loaded through the frame cache,
+     *    in which case none are flipped
+     */
+    public List<PImage> flipVerticallyInPlace(final List<PImage> frameImages)
+    {
+        checkNotNull(frameImages, "frameImages must not be null");
+        final PImage[] frames = frameImages.toArray(new PImage[frameImages.size()]);
+        for (PImage frame : frames)
         {
-            flippedFrames.add(flipVertically(frame));
+            checkNotNull(frame, "frameImages must not contain null images");
+            checkNotShared(frame);
         }
-        return flippedFrames;
+        forEach(frames.length, new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    flipVerticallyInPlace(frames[i]);
+                }
+            });
+        return frameImages;
     }
 
     /**
@@ -514,31 +1369,438 @@ public final class Frames
      * @return the specified image rotated 360 degrees the specified number of steps
      */
     public List<PImage> rotate(final PImage image, final int steps)
+    {
+        checkNotNull(image, "image must not be null");
+        Rotations rotations = createRotations(image, steps).prefetch();
+        return Collections.unmodifiableList(new ArrayList<PImage>(rotations.asList()));
+    }
+
+    /**
+     * Create and return new rotations of the specified image 360 degrees the specified
+     * number of steps, rendered lazily with nearest neighbour sampling.
+     *
+     * @since 1.2
+     * @param image image, must not be null
+     * @param steps number of steps, must be at least one
+     * @return new rotations of the specified image 360 degrees the specified number of steps
+     */
+    public Rotations createRotations(final PImage image, final int steps)
+    {
+        return createRotations(image, steps, false);
+    }
+
+    /**
+     * Create and return new rotations of the specified image 360 degrees the specified
+     * number of steps, rendered lazily.
+     *
+     * @since 1.2
+     * @param image image, must not be null
+     * @param steps number of steps, must be at least one
+     * @param smooth true to render steps with bilinear sampling, false for nearest neighbour
+     *    sampling, which preserves hard edges in pixel art
+     * @return new rotations of the specified image 360 degrees the specified number of steps
+     */
+    public Rotations createRotations(final PImage image, final int steps, final boolean smooth)
     {
         checkNotNull(image, "image must not be null");
         if (steps < 1)
         {
             throw new IllegalArgumentException("steps must be at least 1");
         }
+        return new Rotations(image, steps, smooth);
+    }
+
+    /**
+     * Return the specified frame images transformed lazily by the specified frame transform.
+     * Each frame image is transformed the first time it is requested and then memoized.
+     * Animations created from transformed frames share them rather than copying them,
+     * so frame images are still transformed only when first displayed.
+     *
+     * @since 1.2
+     * @param frameImages list of frame images, must not be null
+     * @param transform frame transform, must not be null
+     * @return the specified frame images transformed lazily by the specified frame transform
+     */
+    public TransformedFrames transform(final List<PImage> frameImages, final FrameTransform transform)
+    {
+        return new TransformedFrames(frameImages, transform);
+    }
+
+    /**
+     * Create and return a new frame deduplicator.
+     *
+     * @since 1.2
+     * @return a new frame deduplicator
+     */
+    public FrameDeduplicator createFrameDeduplicator()
+    {
+        return new FrameDeduplicator();
+    }
+
+    /**
+     * Deduplicate the specified frame images, mapping frame images with identical
+     * content to a single shared frame image.  Frame images are shared with all other
+     * frame lists deduplicated by this frames library that are still reachable; the
+     * deduplicator holds frame images weakly.  Deduplicated frame images must not be
+     * modified in place.
+     *
+     * @since 1.2
+     * @param frameImages list of frame images, must not be null
+     * @return a new list containing the shared frame image for each of the specified
+     *    frame images
+     */
+    public List<PImage> deduplicate(final List<PImage> frameImages)
+    {
+        checkNotNull(frameImages, "frameImages must not be null");
+        return deduplicator.deduplicate(frameImages);
+    }
+
+    /**
+     * Deduplicate the specified frame images, mapping frame images with identical
+     * content to a single shared frame image.  Frame images are shared with all other
+     * frame lists deduplicated by this frames library that are still reachable; the
+     * deduplicator holds frame images weakly.  Deduplicated frame images must not be
+     * modified in place.
+     *
+     * @since 1.2
+     * @param frameImages one or more frame images, must not be null
+     * @return a new list containing the shared frame image for each of the specified
+     *    frame images
+     */
+    public List<PImage> deduplicate(final PImage... frameImages)
+    {
+        checkNotNull(frameImages, "frameImages must not be null");
+        return deduplicate(Arrays.asList(frameImages));
+    }
+
+    /**
+     * Create and return a new frame pack writer, for serializing pre-processed frame
+     * lists and animations to a compact binary frame pack.
+     *
+     * @since 1.2
+     * @return a new frame pack writer
+     */
+    public FramePackWriter createFramePackWriter()
+    {
+        return new FramePackWriter();
+    }
+
+    /**
+     * Load the frame pack with the specified file name, resolved by the image source,
+     * e.g. against the sketch data folder.
+     *
+     * @since 1.2
+     * @param fileName frame pack file name, must not be null
+     * @return the frame pack with the specified file name
+     * @throws IOException if an I/O error occurs, the image source does not read local files,
+     *    or the file is not a frame pack
+     */
+    public FramePack loadFramePack(final String fileName) throws IOException
+    {
+        checkNotNull(fileName, "fileName must not be null");
+        File file = source.getFile(fileName);
+        if (file == null)
+        {
+            throw new FileNotFoundException("could not resolve " + fileName + " to a local file");
+        }
+        return loadFramePack(file);
+    }
+
+    /**
+     * Load the frame pack from the specified file.  The file is memory-mapped, and frame images
+     * are decoded from it the first time each entry is requested.
+     *
+     * @since 1.2
+     * @param file frame pack file, must not be null
+     * @return the frame pack from the specified file
+     * @throws IOException if an I/O error occurs or the file is not a frame pack
+     */
+    public FramePack loadFramePack(final File file) throws IOException
+    {
+        checkNotNull(file, "file must not be null");
+        return new FramePack(file);
+    }
+
+    /**
+     * Open the specified animated GIF or APNG image for reading frame by frame.  The
+     * returned reader should be closed when no longer needed.
+     *
+     * @since 1.2
+     * @param imageName animated image file or URL name, must not be null
+     * @return a reader for the specified animated image
+     * @throws IOException if an I/O error occurs or the image format is not supported
+     */
+    public AnimatedImageReader openAnimatedImage(final String imageName) throws IOException
+    {
+        checkNotNull(imageName, "imageName must not be null");
+        InputStream inputStream = source.createInput(imageName);
+        if (inputStream == null)
+        {
+            throw new FileNotFoundException("could not open " + imageName);
+        }
+        try
+        {
+            return new AnimatedImageReader(inputStream);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            inputStream.close();
+            throw e;
+        }
+    }
 
-        int width = image.width;
-        int height = image.height;
-        int size = Math.max(width, height);
-        BufferedImage spriteSheet = new BufferedImage(size * steps, size, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = spriteSheet.createGraphics();
-        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        double x = width / 2.0d;
-        double y = height / 2.0d;
-        double r = (2.0d / (double) steps) * Math.PI;
-        for (int i = 0; i < steps; i++)
+    /**
+     * Load the specified animated GIF or APNG image.  Frames are decoded one at a time
+     * onto a single canvas, honoring frame offsets, disposal, and blending.
+     *
+     * @since 1.2
+     * @param imageName animated image file or URL name, must not be null
+     * @return the specified animated image
+     * @throws IOException if an I/O error occurs or the image format is not supported
+     */
+    public AnimatedImage loadAnimatedImage(final String imageName) throws IOException
+    {
+        long start = System.nanoTime();
+        try (AnimatedImageReader reader = openAnimatedImage(imageName))
         {
-            AffineTransform rotate = new AffineTransform();
-            rotate.translate(size * i, 0.0d);
-            rotate.rotate(i * r, x, y);
-            graphics.drawRenderedImage(((BufferedImage) image.getImage()), rotate);
+            AnimatedImage image = reader.readAll();
+            metrics.recordLoad(imageName, System.nanoTime() - start);
+            return image;
         }
-        graphics.dispose();
-        return createFrameList(new PImage(spriteSheet), 0, 0, size, size, steps);
+    }
+
+    /**
+     * Create and return a new animated image writer for the specified format.
+     *
+     * @since 1.2
+     * @param format animated image format, must not be null
+     * @return a new animated image writer for the specified format
+     */
+    public AnimatedImageWriter createAnimatedImageWriter(final AnimatedImageWriter.Format format)
+    {
+        return new AnimatedImageWriter(format);
+    }
+
+    /**
+     * Return the cache of frame images loaded by this frames library.  Images and sprite
+     * sheets loaded by name are shared through this cache until evicted.
+     *
+     * @since 1.2
+     * @return the cache of frame images loaded by this frames library
+     */
+    public FrameCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Return the deduplicator shared by frame lists deduplicated by this frames library.
+     * Its saved bytes report how much memory deduplication has saved.
+     *
+     * @since 1.2
+     * @return the deduplicator shared by frame lists deduplicated by this frames library
+     */
+    public FrameDeduplicator getDeduplicator()
+    {
+        return deduplicator;
+    }
+
+    /**
+     * Return the runtime metrics for the frames library.  Metrics are disabled by default.
+     *
+     * @since 1.2
+     * @return the runtime metrics for the frames library
+     */
+    public FramesMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Release resources held by this frames library.  Called automatically by
+     * the applet when the sketch is stopped, if this frames library was created for an applet.
+     *
+     * @since 1.2
+     */
+    public synchronized void dispose()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Return the executor service for loading frame images asynchronously, creating it if necessary.
+     *
+     * @return the executor service for loading frame images asynchronously
+     */
+    private synchronized ExecutorService getExecutor()
+    {
+        if (executor == null)
+        {
+            executor = Executors.newFixedThreadPool(LOADER_THREADS, new ThreadFactory()
+                {
+                    /** Thread count. */
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(final Runnable runnable)
+                    {
+                        Thread thread = new Thread(runnable, "frames-loader-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
+        return executor;
+    }
+
+    /**
+     * Load the specified image through the cache.
+     *
+     * @param imageName image file or URL name
+     * @return the specified image
+     */
+    PImage loadImage(final String imageName)
+    {
+        List<PImage> images = cache.computeIfAbsent("image:" + imageName, new Function<String, List<PImage>>()
+            {
+                @Override
+                public List<PImage> apply(final String key)
+                {
+                    PImage image = decode(imageName);
+                    return image == null ? null : Collections.singletonList(image);
+                }
+            });
+        return images == null ? null : images.get(0);
+    }
+
+    /**
+     * Check that the specified image was not loaded through the cache, and so
+     * may be modified in place.
+     *
+     * @param image image
+     * @throws IllegalArgumentException if <code>image</code> was loaded through the cache
+     */
+    private void checkNotShared(final PImage image)
+    {
+        if (cache.isShared(image))
+        {
+            throw new IllegalArgumentException("image is shared through the frame cache and may not be modified in place");
+        }
+    }
+
+    /**
+     * Load and decode the specified image, bypassing the cache.
+     *
+     * @param imageName image file or URL name
+     * @return the specified image
+     */
+    private PImage decode(final String imageName)
+    {
+        long start = System.nanoTime();
+        PImage image;
+        try
+        {
+            image = source.loadImage(imageName);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("could not load " + imageName, e);
+        }
+        metrics.recordLoad(imageName, System.nanoTime() - start);
+        return metrics.track(image);
+    }
+
+    /**
+     * Load and parse the specified JSON object.
+     *
+     * @param name JSON file or URL name
+     * @return the specified JSON object
+     */
+    private JSONObject loadJSONObject(final String name)
+    {
+        try (InputStream inputStream = source.createInput(name))
+        {
+            if (inputStream == null)
+            {
+                throw new FileNotFoundException("could not open " + name);
+            }
+            return new JSONObject(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("could not load " + name, e);
+        }
+    }
+
+    /**
+     * Call the specified consumer for each index from zero to <code>n</code>, in
+     * parallel if <code>n</code> is at least the parallel threshold.
+     *
+     * @param n number of indices
+     * @param consumer consumer
+     */
+    private static void forEach(final int n, final IntConsumer consumer)
+    {
+        if (n < PARALLEL_THRESHOLD)
+        {
+            for (int i = 0; i < n; i++)
+            {
+                consumer.accept(i);
+            }
+        }
+        else
+        {
+            IntStream.range(0, n).parallel().forEach(consumer);
+        }
+    }
+
+    /**
+     * Return a frame loader for the frame images specified from <code>baseImage</code>, bypassing the cache.
+     *
+     * @param baseImage base image file or URL name, must not be null
+     * @param suffix image suffix, must not be null
+     * @param frames number of frames, must be at least one
+     * @return a frame loader for the frame images specified from <code>baseImage</code>
+     */
+    private IntFunction<PImage> frameLoader(final String baseImage, final String suffix, final int frames)
+    {
+        checkNotNull(baseImage, "baseImage must not be null");
+        checkNotNull(suffix, "suffix must not be null");
+        if (frames < 1) {
+            throw new IllegalArgumentException("frames must be at least 1");
+        }
+        return new IntFunction<PImage>()
+            {
+                @Override
+                public PImage apply(final int frame)
+                {
+                    return decode(frameName(baseImage, suffix, frame, frames));
+                }
+            };
+    }
+
+    private static void awaitFirstFrame(final AsyncFrameList frames)
+    {
+        try
+        {
+            frames.await(0);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for first frame", e);
+        }
+    }
+
+    static String frameName(final String baseImage, final String suffix, final int frame, final int frames)
+    {
+        int leadingZeros = (int) (frames / 10) + 1; // is this math correct?
+        String format = "%s%0" + leadingZeros + "d%s";
+        return String.format(format, new Object[] { baseImage, frame, suffix });
     }
 
     private static void checkNotNull(final Object value, final String message)
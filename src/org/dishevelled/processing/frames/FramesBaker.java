@@ -0,0 +1,772 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.awt.image.BufferedImage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.imageio.ImageIO;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+/**
+ * Frames baker, a headless command line tool that runs frame list transforms once at
+ * build time instead of at sketch startup, writing the results out as ready-to-load
+ * sprite sheets.
+ *
+ * <p>
+ * The baker reads a JSON manifest of sheets, each with a source, an optional chain of
+ * transforms, and an optional frame duration in milliseconds:
+ * </p>
+ * <pre>
+ * {
+ *   "input": "sprites",
+ *   "output": "data",
+ *   "sheets": [
+ *     { "name": "walk", "spriteSheet": "hero.png", "x": 0, "y": 0, "width": 32, "height": 32, "frames": 8 },
+ *     { "name": "walk-left", "spriteSheet": "hero.png", "width": 32, "height": 32, "frames": 8,
+ *       "transforms": [ "flipHorizontally" ] },
+ *     { "name": "coin", "baseImage": "coin", "suffix": ".png", "frames": 12, "duration": 80,
+ *       "transforms": [ { "type": "tint", "color": "#ffffd700" } ] },
+ *     { "name": "turret", "image": "turret.png", "rotations": 16 }
+ *   ]
+ * }
+ * </pre>
+ *
+ * <p>
+ * Supported sources are <code>"spriteSheet"</code>, sliced as by
+ * {@link Frames#createFrameList(PImage,int,int,int,int,int)}; <code>"baseImage"</code>,
+ * loaded as by {@link Frames#createFrameList(String,String,int)}; and <code>"image"</code>,
+ * optionally expanded into <code>"rotations"</code> as by {@link Frames#rotate(PImage,int)}.
+ * Supported transforms are <code>"flipHorizontally"</code>, <code>"flipVertically"</code>,
+ * <code>"rotate"</code> (with <code>"step"</code>, <code>"steps"</code>, and <code>"smooth"</code>),
+ * <code>"tint"</code> (with <code>"color"</code>), and <code>"swapPalette"</code> (with
+ * <code>"from"</code> and <code>"to"</code> color arrays), applied in order as by
+ * {@link FrameTransform}.  Colors are ARGB integers or <code>"#AARRGGBB"</code> or
+ * <code>"#RRGGBB"</code> hex strings.  Input and output directories are relative to the manifest.
+ * </p>
+ *
+ * <p>
+ * Each sheet is baked to <code>name.png</code>, a strip as by {@link Frames#createSpriteSheet(List)},
+ * and <code>name.json</code>, sprite sheet metadata with one sequence named <code>name</code>,
+ * both loadable with {@link Frames#loadSpriteSheet(String,String)}.  The sequence is written as
+ * an explicit frame tag, so sheet names may contain dots and underscores, but not path separators.
+ * Sheets are baked in parallel on a fork-join pool.  A fingerprint of each sheet's manifest entry
+ * and input files is kept in the output directory, and sheets whose fingerprint has not changed
+ * since they were last baked are skipped.
+ * </p>
+ *
+ * <pre>
+ * java -cp frames.jar:core.jar org.dishevelled.processing.frames.FramesBaker [--force] [--parallelism n] manifest.json
+ * </pre>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FramesBaker implements Closeable
+{
+    /** Frames library. */
+    private final Frames frames;
+
+    /** Input directory. */
+    private final File inputDirectory;
+
+    /** Output directory. */
+    private final File outputDirectory;
+
+    /** Fork-join pool for baking sheets in parallel. */
+    private final ForkJoinPool pool;
+
+    /** Default output directory name, relative to the manifest. */
+    static final String DEFAULT_OUTPUT = "baked";
+
+    /** Name of the file in the output directory holding the fingerprints of baked sheets. */
+    static final String STATE_FILE_NAME = ".frames-baker.json";
+
+    /** Version of the baked output, part of each fingerprint so that output baked by an older version is rebaked. */
+    private static final String OUTPUT_VERSION = "2";
+
+    /** Usage. */
+    private static final String USAGE = "usage: java org.dishevelled.processing.frames.FramesBaker"
+        + " [-f|--force] [-j|--parallelism n] manifest.json";
+
+
+    /**
+     * Create a new frames baker with the specified input and output directories,
+     * baking in parallel on all available processors.
+     *
+     * @param inputDirectory input directory, must not be null
+     * @param outputDirectory output directory, must not be null
+     */
+    public FramesBaker(final File inputDirectory, final File outputDirectory)
+    {
+        this(inputDirectory, outputDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a new frames baker with the specified input and output directories and parallelism.
+     *
+     * @param inputDirectory input directory, must not be null
+     * @param outputDirectory output directory, must not be null
+     * @param parallelism parallelism, must be at least one
+     */
+    public FramesBaker(final File inputDirectory, final File outputDirectory, final int parallelism)
+    {
+        if (inputDirectory == null)
+        {
+            throw new NullPointerException("inputDirectory must not be null");
+        }
+        if (outputDirectory == null)
+        {
+            throw new NullPointerException("outputDirectory must not be null");
+        }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.inputDirectory = inputDirectory;
+        this.outputDirectory = outputDirectory;
+        this.pool = new ForkJoinPool(parallelism);
+        this.frames = new Frames(ImageSources.createImageIOSource(inputDirectory));
+    }
+
+
+    /**
+     * Bake the sheets in the specified manifest, skipping those that are up to date
+     * unless <code>force</code> is true.
+     *
+     * @param manifest manifest, must not be null
+     * @param force true to bake every sheet whether or not it is up to date
+     * @return the number of sheets baked
+     * @throws IOException if any sheet could not be baked
+     */
+    public int bake(final JSONObject manifest, final boolean force) throws IOException
+    {
+        if (manifest == null)
+        {
+            throw new NullPointerException("manifest must not be null");
+        }
+        JSONArray sheets = manifest.getJSONArray("sheets");
+        if (sheets == null)
+        {
+            throw new IllegalArgumentException("manifest must contain a sheets array");
+        }
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+        {
+            throw new IOException("could not create output directory " + outputDirectory);
+        }
+        JSONObject previous = readState();
+        Map<String, String> state = new ConcurrentHashMap<String, String>();
+        Set<String> names = new HashSet<String>();
+        List<BakeTask> tasks = new ArrayList<BakeTask>(sheets.size());
+        for (int i = 0; i < sheets.size(); i++)
+        {
+            JSONObject sheet = sheets.getJSONObject(i);
+            String name = sheet.getString("name", null);
+            if (name == null)
+            {
+                throw new IllegalArgumentException("sheet " + i + " must have a name");
+            }
+            if (name.isEmpty() || ".".equals(name) || "..".equals(name)
+                || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0)
+            {
+                throw new IllegalArgumentException("sheet name " + name + " must be a file name without path separators");
+            }
+            if (!names.add(name))
+            {
+                throw new IllegalArgumentException("duplicate sheet name " + name);
+            }
+            tasks.add(new BakeTask(name, sheet, previous.getString(name, null), force, state));
+        }
+        for (BakeTask task : tasks)
+        {
+            pool.execute(task);
+        }
+
+        int baked = 0;
+        IOException failure = null;
+        for (BakeTask task : tasks)
+        {
+            task.join();
+            if (task.failure != null)
+            {
+                if (failure == null)
+                {
+                    failure = new IOException("could not bake sheet " + task.name, task.failure);
+                }
+                else
+                {
+                    failure.addSuppressed(task.failure);
+                }
+            }
+            else if (task.baked)
+            {
+                baked++;
+            }
+        }
+        writeState(state);
+        if (failure != null)
+        {
+            throw failure;
+        }
+        return baked;
+    }
+
+    /**
+     * Shut down the fork-join pool for this frames baker.
+     */
+    @Override
+    public void close()
+    {
+        pool.shutdown();
+        frames.dispose();
+    }
+
+    /**
+     * Bake the specified sheet, unless it is up to date and <code>force</code> is false.
+     *
+     * @param name sheet name
+     * @param sheet sheet manifest entry
+     * @param previousFingerprint fingerprint of the sheet when it was last baked, if any
+     * @param force true to bake the sheet whether or not it is up to date
+     * @param state map of sheet names to fingerprints to update
+     * @return true if the sheet was baked
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean bakeSheet(final String name, final JSONObject sheet, final String previousFingerprint,
+                              final boolean force, final Map<String, String> state) throws IOException
+    {
+        File imageFile = new File(outputDirectory, name + ".png");
+        File metadataFile = new File(outputDirectory, name + ".json");
+        List<String> inputs = inputs(name, sheet);
+        String fingerprint = fingerprint(sheet, inputs);
+        if (!force && fingerprint.equals(previousFingerprint) && imageFile.isFile() && metadataFile.isFile())
+        {
+            state.put(name, fingerprint);
+            return false;
+        }
+
+        List<PImage> frameImages = frames.transform(readFrames(sheet, inputs), readTransform(sheet));
+        PImage spriteSheet = frames.createSpriteSheet(frameImages);
+        writeImage(spriteSheet, imageFile);
+        writeMetadata(name, sheet, frameImages.size(), spriteSheet, metadataFile);
+        state.put(name, fingerprint);
+        return true;
+    }
+
+    /**
+     * Return the names of the input files for the specified sheet.
+     *
+     * @param name sheet name
+     * @param sheet sheet manifest entry
+     * @return the names of the input files for the specified sheet
+     */
+    private static List<String> inputs(final String name, final JSONObject sheet)
+    {
+        if (sheet.hasKey("spriteSheet"))
+        {
+            return Collections.singletonList(sheet.getString("spriteSheet"));
+        }
+        if (sheet.hasKey("baseImage"))
+        {
+            String baseImage = sheet.getString("baseImage");
+            String suffix = sheet.getString("suffix", ".png");
+            int count = sheet.getInt("frames");
+            if (count < 1)
+            {
+                throw new IllegalArgumentException("sheet " + name + " frames must be at least 1");
+            }
+            List<String> inputs = new ArrayList<String>(count);
+            for (int frame = 0; frame < count; frame++)
+            {
+                inputs.add(Frames.frameName(baseImage, suffix, frame, count));
+            }
+            return inputs;
+        }
+        if (sheet.hasKey("image"))
+        {
+            return Collections.singletonList(sheet.getString("image"));
+        }
+        throw new IllegalArgumentException("sheet " + name + " must have a spriteSheet, baseImage, or image source");
+    }
+
+    /**
+     * Return a fingerprint of the specified sheet manifest entry and the contents of its input files.
+     *
+     * @param sheet sheet manifest entry
+     * @param inputs names of the input files for the sheet
+     * @return a fingerprint of the specified sheet manifest entry and the contents of its input files
+     * @throws IOException if an I/O error occurs
+     */
+    private String fingerprint(final JSONObject sheet, final List<String> inputs) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 digest not available", e);
+        }
+        digest.update(OUTPUT_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update(sheet.format(-1).getBytes(StandardCharsets.UTF_8));
+        for (String input : inputs)
+        {
+            digest.update(input.getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(inputFile(input).toPath()));
+        }
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : digest.digest())
+        {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Read the frame images for the specified sheet from its input files.
+     *
+     * @param sheet sheet manifest entry
+     * @param inputs names of the input files for the sheet
+     * @return the frame images for the specified sheet
+     * @throws IOException if an I/O error occurs
+     */
+    private List<PImage> readFrames(final JSONObject sheet, final List<String> inputs) throws IOException
+    {
+        if (sheet.hasKey("spriteSheet"))
+        {
+            return frames.createFrameList(readImage(inputs.get(0)), sheet.getInt("x", 0), sheet.getInt("y", 0),
+                                          sheet.getInt("width"), sheet.getInt("height"), sheet.getInt("frames"));
+        }
+        if (sheet.hasKey("baseImage"))
+        {
+            List<PImage> images = new ArrayList<PImage>(inputs.size());
+            for (String input : inputs)
+            {
+                images.add(readImage(input));
+            }
+            return images;
+        }
+        PImage image = readImage(inputs.get(0));
+        return sheet.hasKey("rotations") ? frames.rotate(image, sheet.getInt("rotations")) : Collections.singletonList(image);
+    }
+
+    /**
+     * Read the frame transform for the specified sheet.
+     *
+     * @param sheet sheet manifest entry
+     * @return the frame transform for the specified sheet
+     */
+    private static FrameTransform readTransform(final JSONObject sheet)
+    {
+        FrameTransform transform = FrameTransform.identity();
+        JSONArray transforms = sheet.getJSONArray("transforms");
+        if (transforms == null)
+        {
+            return transform;
+        }
+        for (int i = 0; i < transforms.size(); i++)
+        {
+            Object value = transforms.get(i);
+            JSONObject step = (value instanceof JSONObject) ? (JSONObject) value : new JSONObject();
+            String type = (value instanceof JSONObject) ? step.getString("type") : String.valueOf(value);
+            if ("flipHorizontally".equals(type))
+            {
+                transform = transform.flipHorizontally();
+            }
+            else if ("flipVertically".equals(type))
+            {
+                transform = transform.flipVertically();
+            }
+            else if ("rotate".equals(type))
+            {
+                transform = transform.rotate(step.getInt("step"), step.getInt("steps"), step.getBoolean("smooth", false));
+            }
+            else if ("tint".equals(type))
+            {
+                transform = transform.tint(color(step.get("color")));
+            }
+            else if ("swapPalette".equals(type))
+            {
+                transform = transform.swapPalette(colors(step.getJSONArray("from")), colors(step.getJSONArray("to")));
+            }
+            else
+            {
+                throw new IllegalArgumentException("unknown transform " + type);
+            }
+        }
+        return transform;
+    }
+
+    /**
+     * Read the specified input image.
+     *
+     * @param input input file name
+     * @return the specified input image
+     * @throws IOException if an I/O error occurs
+     */
+    private PImage readImage(final String input) throws IOException
+    {
+        File file = inputFile(input);
+        if (!file.isFile())
+        {
+            throw new FileNotFoundException(file.getPath());
+        }
+        PImage image = frames.loadImage(input);
+        if (image == null || image.width < 1)
+        {
+            throw new IOException("could not decode " + file);
+        }
+        return image;
+    }
+
+    /**
+     * Write the specified image to the specified file in PNG format.
+     *
+     * @param image image
+     * @param file file
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeImage(final PImage image, final File file) throws IOException
+    {
+        BufferedImage bufferedImage = new BufferedImage(image.width, image.height, BufferedImage.TYPE_INT_ARGB);
+        bufferedImage.setRGB(0, 0, image.width, image.height, Pixels.argb(image), 0, image.width);
+        if (!ImageIO.write(bufferedImage, "png", file))
+        {
+            throw new IOException("no PNG image writer available");
+        }
+    }
+
+    /**
+     * Write sprite sheet metadata for the specified baked sheet to the specified file.
+     *
+     * @param name sheet name
+     * @param sheet sheet manifest entry
+     * @param count number of frames
+     * @param spriteSheet baked sprite sheet image
+     * @param file file
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeMetadata(final String name, final JSONObject sheet, final int count,
+                                      final PImage spriteSheet, final File file) throws IOException
+    {
+        int width = spriteSheet.width / count;
+        int height = spriteSheet.height;
+        JSONArray frameArray = new JSONArray();
+        for (int i = 0; i < count; i++)
+        {
+            JSONObject bounds = new JSONObject();
+            bounds.setInt("x", i * width);
+            bounds.setInt("y", 0);
+            bounds.setInt("w", width);
+            bounds.setInt("h", height);
+            JSONObject frame = new JSONObject();
+            frame.setString("filename", name + "_" + i);
+            frame.setJSONObject("frame", bounds);
+            if (sheet.hasKey("duration"))
+            {
+                frame.setInt("duration", sheet.getInt("duration"));
+            }
+            frameArray.append(frame);
+        }
+        JSONObject size = new JSONObject();
+        size.setInt("w", spriteSheet.width);
+        size.setInt("h", spriteSheet.height);
+        JSONObject frameTag = new JSONObject();
+        frameTag.setString("name", name);
+        frameTag.setInt("from", 0);
+        frameTag.setInt("to", count - 1);
+        frameTag.setString("direction", "forward");
+        JSONArray frameTags = new JSONArray();
+        frameTags.append(frameTag);
+        JSONObject meta = new JSONObject();
+        meta.setString("image", name + ".png");
+        meta.setJSONObject("size", size);
+        meta.setJSONArray("frameTags", frameTags);
+        JSONObject metadata = new JSONObject();
+        metadata.setJSONArray("frames", frameArray);
+        metadata.setJSONObject("meta", meta);
+        if (!metadata.save(file, null))
+        {
+            throw new IOException("could not write " + file);
+        }
+    }
+
+    /**
+     * Read the fingerprints of previously baked sheets from the state file, if any.
+     *
+     * @return the fingerprints of previously baked sheets
+     */
+    private JSONObject readState()
+    {
+        File file = new File(outputDirectory, STATE_FILE_NAME);
+        JSONObject state = file.isFile() ? PApplet.loadJSONObject(file) : null;
+        return state == null ? new JSONObject() : state;
+    }
+
+    /**
+     * Write the specified fingerprints of baked sheets to the state file.
+     *
+     * @param fingerprints map of sheet names to fingerprints
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeState(final Map<String, String> fingerprints) throws IOException
+    {
+        JSONObject state = new JSONObject();
+        for (Map.Entry<String, String> entry : fingerprints.entrySet())
+        {
+            state.setString(entry.getKey(), entry.getValue());
+        }
+        File file = new File(outputDirectory, STATE_FILE_NAME);
+        if (!state.save(file, null))
+        {
+            throw new IOException("could not write " + file);
+        }
+    }
+
+    /**
+     * Return the specified input file, resolved against the input directory.
+     *
+     * @param input input file name
+     * @return the specified input file
+     */
+    private File inputFile(final String input)
+    {
+        return resolve(inputDirectory, input);
+    }
+
+    /**
+     * Resolve the specified file name against the specified directory, unless it is absolute.
+     *
+     * @param directory directory
+     * @param fileName file name
+     * @return the specified file name resolved against the specified directory
+     */
+    private static File resolve(final File directory, final String fileName)
+    {
+        File file = new File(fileName);
+        return file.isAbsolute() ? file : new File(directory, fileName);
+    }
+
+    /**
+     * Parse the specified ARGB color, an integer or a <code>"#AARRGGBB"</code> or
+     * <code>"#RRGGBB"</code> hex string.
+     *
+     * @param value value to parse
+     * @return the specified ARGB color
+     */
+    private static int color(final Object value)
+    {
+        if (value instanceof Number)
+        {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String)
+        {
+            String hex = ((String) value).startsWith("#") ? ((String) value).substring(1) : (String) value;
+            if (hex.length() == 6 || hex.length() == 8)
+            {
+                try
+                {
+                    int color = (int) Long.parseLong(hex, 16);
+                    return hex.length() == 6 ? (0xff000000 | color) : color;
+                }
+                catch (NumberFormatException e)
+                {
+                    // fall through
+                }
+            }
+        }
+        throw new IllegalArgumentException("invalid color " + value);
+    }
+
+    /**
+     * Parse the specified array of ARGB colors.
+     *
+     * @param values values to parse, must not be null
+     * @return the specified array of ARGB colors
+     */
+    private static int[] colors(final JSONArray values)
+    {
+        if (values == null)
+        {
+            throw new IllegalArgumentException("swapPalette requires from and to color arrays");
+        }
+        int[] colors = new int[values.size()];
+        for (int i = 0; i < colors.length; i++)
+        {
+            colors[i] = color(values.get(i));
+        }
+        return colors;
+    }
+
+    /**
+     * Fork-join task that bakes one sheet.
+     */
+    private final class BakeTask extends RecursiveAction
+    {
+        /** Serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Sheet name. */
+        private final String name;
+
+        /** Sheet manifest entry. */
+        private final JSONObject sheet;
+
+        /** Fingerprint of the sheet when it was last baked, if any. */
+        private final String previousFingerprint;
+
+        /** True to bake the sheet whether or not it is up to date. */
+        private final boolean force;
+
+        /** Map of sheet names to fingerprints to update. */
+        private final Map<String, String> state;
+
+        /** True if the sheet was baked. */
+        private boolean baked;
+
+        /** Failure baking the sheet, if any. */
+        private Exception failure;
+
+
+        /**
+         * Create a new bake task.
+         *
+         * @param name sheet name
+         * @param sheet sheet manifest entry
+         * @param previousFingerprint fingerprint of the sheet when it was last baked, if any
+         * @param force true to bake the sheet whether or not it is up to date
+         * @param state map of sheet names to fingerprints to update
+         */
+        BakeTask(final String name, final JSONObject sheet, final String previousFingerprint,
+                 final boolean force, final Map<String, String> state)
+        {
+            this.name = name;
+            this.sheet = sheet;
+            this.previousFingerprint = previousFingerprint;
+            this.force = force;
+            this.state = state;
+        }
+
+
+        @Override
+        protected void compute()
+        {
+            try
+            {
+                baked = bakeSheet(name, sheet, previousFingerprint, force, state);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                failure = e;
+            }
+        }
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line arguments
+     * @throws IOException if the manifest could not be read or any sheet could not be baked
+     */
+    public static void main(final String[] args) throws IOException
+    {
+        System.setProperty("java.awt.headless", "true");
+        boolean force = false;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        String manifestName = null;
+        for (int i = 0; i < args.length; i++)
+        {
+            if ("-f".equals(args[i]) || "--force".equals(args[i]))
+            {
+                force = true;
+            }
+            else if (("-j".equals(args[i]) || "--parallelism".equals(args[i])) && (i + 1) < args.length)
+            {
+                parallelism = Integer.parseInt(args[++i]);
+            }
+            else if (manifestName == null && !args[i].startsWith("-"))
+            {
+                manifestName = args[i];
+            }
+            else
+            {
+                manifestName = null;
+                break;
+            }
+        }
+        if (manifestName == null)
+        {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        File manifestFile = new File(manifestName).getAbsoluteFile();
+        if (!manifestFile.isFile())
+        {
+            throw new FileNotFoundException(manifestFile.getPath());
+        }
+        JSONObject manifest = PApplet.loadJSONObject(manifestFile);
+        File directory = manifestFile.getParentFile();
+        File inputDirectory = resolve(directory, manifest.getString("input", "."));
+        File outputDirectory = resolve(directory, manifest.getString("output", DEFAULT_OUTPUT));
+
+        long start = System.nanoTime();
+        try (FramesBaker baker = new FramesBaker(inputDirectory, outputDirectory, parallelism))
+        {
+            int baked = baker.bake(manifest, force);
+            int sheets = manifest.getJSONArray("sheets").size();
+            System.out.println("baked " + baked + " of " + sheets + " sheets to " + outputDirectory
+                               + " in " + ((System.nanoTime() - start) / 1000000L) + " ms");
+        }
+    }
+}
@@ -0,0 +1,710 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.lang.management.ManagementFactory;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import processing.core.PImage;
+
+/**
+ * Runtime metrics for the frames library, shared by all frames libraries and animations in
+ * the process: image load and decode times per source, transform times, pixel bytes held by
+ * live frame images, frame cache hits and misses, and animation advance counts.
+ *
+ * <p>
+ * Metrics are available programmatically via {@link #snapshot()} and, once
+ * {@link #registerMBean()} has been called, via JMX as <code>{@value #OBJECT_NAME}</code>.
+ * Metrics are disabled by default; call {@link #setEnabled(boolean)} to start recording.
+ * While disabled, each instrumented call costs a single volatile read.
+ * </p>
+ *
+ * <p>
+ * Load timings are aggregated by base name, with runs of digits in the source name
+ * replaced by <code>#</code>, so that <code>walk0001.png</code> and <code>walk0002.png</code>
+ * are both recorded under <code>walk#.png</code>.  At most {@value #MAX_LOAD_SOURCES} distinct
+ * sources are kept; further sources are recorded under <code>{@value #OTHER_SOURCES}</code>.
+ * </p>
+ *
+ * <p>
+ * Animation advances are counted by each {@link Animation#advance()} call and, for
+ * {@link AnimationGroup}, once per batch for all of its entities.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class FramesMetrics implements FramesMetricsMBean
+{
+    /** JMX object name for the frames metrics MBean. */
+    public static final String OBJECT_NAME = "org.dishevelled.processing.frames:type=FramesMetrics";
+
+    /** Maximum number of distinct load sources. */
+    static final int MAX_LOAD_SOURCES = 256;
+
+    /** Load source for loads beyond the maximum number of distinct load sources. */
+    static final String OTHER_SOURCES = "(other)";
+
+    /** Single instance. */
+    private static final FramesMetrics INSTANCE = new FramesMetrics();
+
+    /** True if metrics are enabled. */
+    private volatile boolean enabled = false;
+
+    /** Load timers keyed by source. */
+    private final ConcurrentMap<String, Timer> loads = new ConcurrentHashMap<String, Timer>();
+
+    /** Transform timers keyed by transform. */
+    private final ConcurrentMap<String, Timer> transforms = new ConcurrentHashMap<String, Timer>();
+
+    /** Weak references to live frame images. */
+    private final Set<LiveFrame> live = ConcurrentHashMap.newKeySet();
+
+    /** Queue of weak references to live frame images that have been collected. */
+    private final ReferenceQueue<PImage> collected = new ReferenceQueue<PImage>();
+
+    /** Number of live frame images. */
+    private final LongAdder liveFrames = new LongAdder();
+
+    /** Pixel bytes held by live frame images. */
+    private final LongAdder liveBytes = new LongAdder();
+
+    /** Number of frame cache hits. */
+    private final LongAdder cacheHits = new LongAdder();
+
+    /** Number of frame cache misses. */
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /** Number of frame cache evictions. */
+    private final LongAdder cacheEvictions = new LongAdder();
+
+    /** Number of animation advances. */
+    private final LongAdder advances = new LongAdder();
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private FramesMetrics()
+    {
+        // empty
+    }
+
+
+    /**
+     * Return the frames metrics.
+     *
+     * @return the frames metrics
+     */
+    public static FramesMetrics getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Register the frames metrics MBean with the platform MBean server, if not already registered.
+     *
+     * @throws IllegalStateException if the MBean could not be registered
+     */
+    public void registerMBean()
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+            {
+                server.registerMBean(this, name);
+            }
+        }
+        catch (InstanceAlreadyExistsException e)
+        {
+            // registered concurrently
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("could not register frames metrics MBean", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Return a snapshot of the current metrics.
+     *
+     * @return a snapshot of the current metrics
+     */
+    public Snapshot snapshot()
+    {
+        expunge();
+        return new Snapshot(timings(loads), timings(transforms), liveFrames.sum(), liveBytes.sum(),
+                            cacheHits.sum(), cacheMisses.sum(), cacheEvictions.sum(), advances.sum());
+    }
+
+    @Override
+    public void reset()
+    {
+        loads.clear();
+        transforms.clear();
+        live.clear();
+        liveFrames.reset();
+        liveBytes.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        cacheEvictions.reset();
+        advances.reset();
+    }
+
+    @Override
+    public long getLoadCount()
+    {
+        return sumCounts(loads);
+    }
+
+    @Override
+    public long getLoadTimeNanos()
+    {
+        return sumNanos(loads);
+    }
+
+    @Override
+    public long getTransformCount()
+    {
+        return sumCounts(transforms);
+    }
+
+    @Override
+    public long getTransformTimeNanos()
+    {
+        return sumNanos(transforms);
+    }
+
+    @Override
+    public long getLiveFrameCount()
+    {
+        expunge();
+        return liveFrames.sum();
+    }
+
+    @Override
+    public long getLiveFrameBytes()
+    {
+        expunge();
+        return liveBytes.sum();
+    }
+
+    @Override
+    public long getCacheHitCount()
+    {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount()
+    {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public long getCacheEvictionCount()
+    {
+        return cacheEvictions.sum();
+    }
+
+    @Override
+    public double getCacheHitRate()
+    {
+        return hitRate(cacheHits.sum(), cacheMisses.sum());
+    }
+
+    @Override
+    public long getAdvanceCount()
+    {
+        return advances.sum();
+    }
+
+    /**
+     * Record loading and decoding an image from the specified source, aggregated by base name.
+     *
+     * @param source source
+     * @param nanos elapsed time in nanoseconds
+     */
+    void recordLoad(final String source, final long nanos)
+    {
+        if (enabled)
+        {
+            String key = baseName(source);
+            if (!loads.containsKey(key) && loads.size() >= MAX_LOAD_SOURCES)
+            {
+                key = OTHER_SOURCES;
+            }
+            timer(loads, key).record(nanos);
+        }
+    }
+
+    /**
+     * Record the specified transform.
+     *
+     * @param transform transform
+     * @param nanos elapsed time in nanoseconds
+     */
+    void recordTransform(final String transform, final long nanos)
+    {
+        if (enabled)
+        {
+            timer(transforms, transform).record(nanos);
+        }
+    }
+
+    /**
+     * Track the pixel bytes held by the specified frame image while it remains reachable.
+     * Callers should track each newly created frame image once.
+     *
+     * @param image frame image, may be null
+     * @return the specified frame image
+     */
+    PImage track(final PImage image)
+    {
+        if (enabled && image != null)
+        {
+            expunge();
+            LiveFrame liveFrame = new LiveFrame(image, FrameCache.sizeOf(image), collected);
+            live.add(liveFrame);
+            liveFrames.increment();
+            liveBytes.add(liveFrame.bytes);
+        }
+        return image;
+    }
+
+    /**
+     * Stop tracking frame images that have been collected.
+     */
+    private void expunge()
+    {
+        Reference<? extends PImage> reference;
+        while ((reference = collected.poll()) != null)
+        {
+            LiveFrame liveFrame = (LiveFrame) reference;
+            if (live.remove(liveFrame))
+            {
+                liveFrames.decrement();
+                liveBytes.add(-liveFrame.bytes);
+            }
+        }
+    }
+
+    /**
+     * Record a frame cache hit.
+     */
+    void cacheHit()
+    {
+        if (enabled)
+        {
+            cacheHits.increment();
+        }
+    }
+
+    /**
+     * Record a frame cache miss.
+     */
+    void cacheMiss()
+    {
+        if (enabled)
+        {
+            cacheMisses.increment();
+        }
+    }
+
+    /**
+     * Record a frame cache eviction.
+     */
+    void cacheEviction()
+    {
+        if (enabled)
+        {
+            cacheEvictions.increment();
+        }
+    }
+
+    /**
+     * Record the specified number of animation advances.
+     *
+     * @param count number of animation advances
+     */
+    void advanced(final long count)
+    {
+        if (enabled)
+        {
+            advances.add(count);
+        }
+    }
+
+    /**
+     * Return the base name of the specified source, with runs of digits replaced by <code>#</code>.
+     *
+     * @param source source
+     * @return the base name of the specified source
+     */
+    static String baseName(final String source)
+    {
+        return source == null ? OTHER_SOURCES : source.replaceAll("[0-9]+", "#");
+    }
+
+    private static Timer timer(final ConcurrentMap<String, Timer> timers, final String key)
+    {
+        Timer timer = timers.get(key);
+        if (timer == null)
+        {
+            Timer created = new Timer();
+            timer = timers.putIfAbsent(key, created);
+            if (timer == null)
+            {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    private static Map<String, Timing> timings(final Map<String, Timer> timers)
+    {
+        Map<String, Timing> timings = new TreeMap<String, Timing>();
+        for (Map.Entry<String, Timer> entry : timers.entrySet())
+        {
+            timings.put(entry.getKey(), new Timing(entry.getValue().count.sum(), entry.getValue().nanos.sum()));
+        }
+        return Collections.unmodifiableMap(timings);
+    }
+
+    private static long sumCounts(final Map<String, Timer> timers)
+    {
+        long sum = 0L;
+        for (Timer timer : timers.values())
+        {
+            sum += timer.count.sum();
+        }
+        return sum;
+    }
+
+    private static long sumNanos(final Map<String, Timer> timers)
+    {
+        long sum = 0L;
+        for (Timer timer : timers.values())
+        {
+            sum += timer.nanos.sum();
+        }
+        return sum;
+    }
+
+    private static double hitRate(final long hits, final long misses)
+    {
+        long total = hits + misses;
+        return total == 0L ? 0.0d : hits / (double) total;
+    }
+
+    /**
+     * Weak reference to a live frame image, with its size in bytes.
+     */
+    private static final class LiveFrame extends WeakReference<PImage>
+    {
+        /** Size in bytes. */
+        private final long bytes;
+
+
+        /**
+         * Create a new weak reference to the specified live frame image.
+         *
+         * @param image live frame image
+         * @param bytes size in bytes
+         * @param queue queue to register with
+         */
+        LiveFrame(final PImage image, final long bytes, final ReferenceQueue<PImage> queue)
+        {
+            super(image, queue);
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Timer.
+     */
+    private static final class Timer
+    {
+        /** Count. */
+        private final LongAdder count = new LongAdder();
+
+        /** Total elapsed time in nanoseconds. */
+        private final LongAdder nanos = new LongAdder();
+
+
+        /**
+         * Record the specified elapsed time.
+         *
+         * @param elapsed elapsed time in nanoseconds
+         */
+        void record(final long elapsed)
+        {
+            count.increment();
+            nanos.add(elapsed);
+        }
+    }
+
+    /**
+     * Count and total elapsed time of a timed operation.
+     */
+    public static final class Timing
+    {
+        /** Count. */
+        private final long count;
+
+        /** Total elapsed time in nanoseconds. */
+        private final long totalNanos;
+
+
+        /**
+         * Create a new timing.
+         *
+         * @param count count
+         * @param totalNanos total elapsed time in nanoseconds
+         */
+        Timing(final long count, final long totalNanos)
+        {
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+
+        /**
+         * Return the count.
+         *
+         * @return the count
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Return the total elapsed time in nanoseconds.
+         *
+         * @return the total elapsed time in nanoseconds
+         */
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        /**
+         * Return the mean elapsed time in nanoseconds.
+         *
+         * @return the mean elapsed time in nanoseconds
+         */
+        public double getMeanNanos()
+        {
+            return count == 0L ? 0.0d : totalNanos / (double) count;
+        }
+
+        @Override
+        public String toString()
+        {
+            return count + " in " + totalNanos + " ns";
+        }
+    }
+
+    /**
+     * Immutable snapshot of frames metrics.
+     */
+    public static final class Snapshot
+    {
+        /** Load timings keyed by source. */
+        private final Map<String, Timing> loads;
+
+        /** Transform timings keyed by transform. */
+        private final Map<String, Timing> transforms;
+
+        /** Number of live frame images. */
+        private final long liveFrameCount;
+
+        /** Pixel bytes held by live frame images. */
+        private final long liveFrameBytes;
+
+        /** Number of frame cache hits. */
+        private final long cacheHitCount;
+
+        /** Number of frame cache misses. */
+        private final long cacheMissCount;
+
+        /** Number of frame cache evictions. */
+        private final long cacheEvictionCount;
+
+        /** Number of animation advances. */
+        private final long advanceCount;
+
+
+        /**
+         * Create a new snapshot.
+         *
+         * @param loads load timings keyed by source
+         * @param transforms transform timings keyed by transform
+         * @param liveFrameCount number of live frame images
+         * @param liveFrameBytes pixel bytes held by live frame images
+         * @param cacheHitCount number of frame cache hits
+         * @param cacheMissCount number of frame cache misses
+         * @param cacheEvictionCount number of frame cache evictions
+         * @param advanceCount number of animation advances
+         */
+        Snapshot(final Map<String, Timing> loads, final Map<String, Timing> transforms,
+                 final long liveFrameCount, final long liveFrameBytes,
+                 final long cacheHitCount, final long cacheMissCount, final long cacheEvictionCount,
+                 final long advanceCount)
+        {
+            this.loads = loads;
+            this.transforms = transforms;
+            this.liveFrameCount = liveFrameCount;
+            this.liveFrameBytes = liveFrameBytes;
+            this.cacheHitCount = cacheHitCount;
+            this.cacheMissCount = cacheMissCount;
+            this.cacheEvictionCount = cacheEvictionCount;
+            this.advanceCount = advanceCount;
+        }
+
+
+        /**
+         * Return image load and decode timings keyed by source base name.
+         *
+         * @return image load and decode timings keyed by source base name
+         */
+        public Map<String, Timing> getLoadTimings()
+        {
+            return loads;
+        }
+
+        /**
+         * Return transform timings keyed by transform, e.g. <code>flipHorizontally</code>,
+         * <code>rotate</code>, or <code>createSpriteSheet</code>.
+         *
+         * @return transform timings keyed by transform
+         */
+        public Map<String, Timing> getTransformTimings()
+        {
+            return transforms;
+        }
+
+        /**
+         * Return the number of live frame images created by the frames library.
+         *
+         * @return the number of live frame images created by the frames library
+         */
+        public long getLiveFrameCount()
+        {
+            return liveFrameCount;
+        }
+
+        /**
+         * Return the pixel bytes held by live frame images created by the frames library.
+         *
+         * @return the pixel bytes held by live frame images created by the frames library
+         */
+        public long getLiveFrameBytes()
+        {
+            return liveFrameBytes;
+        }
+
+        /**
+         * Return the number of frame cache hits.
+         *
+         * @return the number of frame cache hits
+         */
+        public long getCacheHitCount()
+        {
+            return cacheHitCount;
+        }
+
+        /**
+         * Return the number of frame cache misses.
+         *
+         * @return the number of frame cache misses
+         */
+        public long getCacheMissCount()
+        {
+            return cacheMissCount;
+        }
+
+        /**
+         * Return the number of frame cache evictions.
+         *
+         * @return the number of frame cache evictions
+         */
+        public long getCacheEvictionCount()
+        {
+            return cacheEvictionCount;
+        }
+
+        /**
+         * Return the frame cache hit rate, from <code>0.0</code> to <code>1.0</code>.
+         *
+         * @return the frame cache hit rate
+         */
+        public double getCacheHitRate()
+        {
+            return hitRate(cacheHitCount, cacheMissCount);
+        }
+
+        /**
+         * Return the number of animation advances.
+         *
+         * @return the number of animation advances
+         */
+        public long getAdvanceCount()
+        {
+            return advanceCount;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+/**
+ * JMX management interface for frames metrics.
+ *
+ * @see FramesMetrics
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public interface FramesMetricsMBean
+{
+    /**
+     * Return true if metrics are enabled.
+     *
+     * @return true if metrics are enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Set whether metrics are enabled.
+     *
+     * @param enabled true if metrics are enabled
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Reset all the counts and timings and stop tracking live frame images.
+     */
+    void reset();
+
+    /**
+     * Return the number of images loaded and decoded.
+     *
+     * @return the number of images loaded and decoded
+     */
+    long getLoadCount();
+
+    /**
+     * Return the total time spent loading and decoding images in nanoseconds.
+     *
+     * @return the total time spent loading and decoding images in nanoseconds
+     */
+    long getLoadTimeNanos();
+
+    /**
+     * Return the number of transforms.
+     *
+     * @return the number of transforms
+     */
+    long getTransformCount();
+
+    /**
+     * Return the total time spent in transforms in nanoseconds.
+     *
+     * @return the total time spent in transforms in nanoseconds
+     */
+    long getTransformTimeNanos();
+
+    /**
+     * Return the number of live frame images created by the frames library.
+     *
+     * @return the number of live frame images created by the frames library
+     */
+    long getLiveFrameCount();
+
+    /**
+     * Return the pixel bytes held by live frame images created by the frames library.
+     *
+     * @return the pixel bytes held by live frame images created by the frames library
+     */
+    long getLiveFrameBytes();
+
+    /**
+     * Return the number of frame cache hits.
+     *
+     * @return the number of frame cache hits
+     */
+    long getCacheHitCount();
+
+    /**
+     * Return the number of frame cache misses.
+     *
+     * @return the number of frame cache misses
+     */
+    long getCacheMissCount();
+
+    /**
+     * Return the number of frame cache evictions.
+     *
+     * @return the number of frame cache evictions
+     */
+    long getCacheEvictionCount();
+
+    /**
+     * Return the frame cache hit rate, from <code>0.0</code> to <code>1.0</code>.
+     *
+     * @return the frame cache hit rate
+     */
+    double getCacheHitRate();
+
+    /**
+     * Return the number of animation advances.
+     *
+     * @return the number of animation advances
+     */
+    long getAdvanceCount();
+}
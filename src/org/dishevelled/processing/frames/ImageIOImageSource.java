@@ -0,0 +1,114 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.awt.image.BufferedImage;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import javax.imageio.stream.ImageInputStream;
+
+import processing.core.PImage;
+
+/**
+ * Image source that decodes image files in a directory with ImageIO.
+ *
+ * @author  Michael Heuer
+ */
+final class ImageIOImageSource implements ImageSource
+{
+    /** Directory. */
+    private final File directory;
+
+
+    /**
+     * Create a new ImageIO image source for the specified directory.
+     *
+     * @param directory directory
+     */
+    ImageIOImageSource(final File directory)
+    {
+        this.directory = directory;
+    }
+
+
+    @Override
+    public PImage loadImage(final String imageName) throws IOException
+    {
+        File file = getFile(imageName);
+        return file.isFile() ? image(ImageIO.read(file)) : null;
+    }
+
+    @Override
+    public InputStream createInput(final String name) throws IOException
+    {
+        File file = getFile(name);
+        return file.isFile() ? new BufferedInputStream(new FileInputStream(file)) : null;
+    }
+
+    @Override
+    public File getFile(final String name)
+    {
+        File file = new File(name);
+        return file.isAbsolute() ? file : new File(directory, name);
+    }
+
+    /**
+     * Decode the image read from the specified image input stream with ImageIO.  The image input
+     * stream is closed by ImageIO if an image is read.
+     *
+     * @param inputStream image input stream
+     * @return the image read from the specified image input stream, or null if it could not be decoded
+     * @throws IOException if an I/O error occurs
+     */
+    static PImage read(final ImageInputStream inputStream) throws IOException
+    {
+        return image(ImageIO.read(inputStream));
+    }
+
+    /**
+     * Copy the specified buffered image into a new image, in <code>ARGB</code> format if the
+     * buffered image has alpha or else <code>RGB</code> format.
+     *
+     * @param bufferedImage buffered image, if any
+     * @return a new image copied from the specified buffered image, or null if it is null
+     */
+    static PImage image(final BufferedImage bufferedImage)
+    {
+        if (bufferedImage == null)
+        {
+            return null;
+        }
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+        PImage image = new PImage(width, height, bufferedImage.getColorModel().hasAlpha() ? PImage.ARGB : PImage.RGB);
+        bufferedImage.getRGB(0, 0, width, height, image.pixels, 0, width);
+        return image;
+    }
+}
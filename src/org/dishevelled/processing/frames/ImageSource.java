@@ -0,0 +1,75 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import processing.core.PImage;
+
+/**
+ * Image source, a pluggable loader of frame images and other resources by name.
+ *
+ * <p>
+ * Implementations must be safe to call from multiple threads, so that frame images
+ * may be decoded in parallel and off the animation thread.  See {@link ImageSources}
+ * for the image sources provided by this library.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public interface ImageSource
+{
+
+    /**
+     * Load and decode the image with the specified name.
+     *
+     * @param imageName image name, must not be null
+     * @return the image with the specified name, or null if no such image exists
+     *    or it could not be decoded
+     * @throws IOException if an I/O error occurs
+     */
+    PImage loadImage(String imageName) throws IOException;
+
+    /**
+     * Open an input stream for the resource with the specified name.  The returned
+     * input stream should be closed by the caller.
+     *
+     * @param name resource name, must not be null
+     * @return an input stream for the resource with the specified name, or null if no
+     *    such resource exists
+     * @throws IOException if an I/O error occurs
+     */
+    InputStream createInput(String name) throws IOException;
+
+    /**
+     * Return the local file for the resource with the specified name, if any.
+     *
+     * @param name resource name, must not be null
+     * @return the local file for the resource with the specified name, or null if this
+     *    image source does not read resources from local files
+     */
+    File getFile(String name);
+}
@@ -0,0 +1,137 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Map;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Static factory methods for image sources.
+ *
+ * <p>
+ * For example, to load frame images headless, without an applet:
+ * </p>
+ * <pre>
+ * Frames frames = new Frames(ImageSources.createImageIOSource(new File("data")));
+ * List&lt;PImage&gt; walk = frames.createFrameList("walk", ".png", 8);
+ * </pre>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class ImageSources
+{
+
+    /**
+     * Private no-arg constructor.
+     */
+    private ImageSources()
+    {
+        // empty
+    }
+
+
+    /**
+     * Create and return a new image source that loads images and other resources through
+     * the specified applet, resolving names as the applet does, against the sketch data folder.
+     *
+     * @param applet applet, must not be null
+     * @return a new image source that loads images and other resources through the specified applet
+     */
+    public static ImageSource createAppletSource(final PApplet applet)
+    {
+        checkNotNull(applet, "applet must not be null");
+        return new PAppletImageSource(applet);
+    }
+
+    /**
+     * Create and return a new image source that decodes image files in the specified
+     * directory with ImageIO.  Absolute file names are not resolved against the directory.
+     *
+     * @param directory directory, must not be null
+     * @return a new image source that decodes image files in the specified directory with ImageIO
+     */
+    public static ImageSource createImageIOSource(final File directory)
+    {
+        checkNotNull(directory, "directory must not be null");
+        return new ImageIOImageSource(directory);
+    }
+
+    /**
+     * Create and return a new image source that reads raw pixel dumps in the specified
+     * directory through file channels, without decoding.  Absolute file names are not
+     * resolved against the directory.
+     *
+     * @see #writeRawPixels(PImage, File)
+     * @param directory directory, must not be null
+     * @return a new image source that reads raw pixel dumps in the specified directory
+     */
+    public static ImageSource createRawPixelSource(final File directory)
+    {
+        checkNotNull(directory, "directory must not be null");
+        return new RawPixelImageSource(directory);
+    }
+
+    /**
+     * Create and return a new image source that decodes images from the specified in-memory
+     * byte arrays, either encoded in a format supported by ImageIO or raw pixel dumps.
+     * The map is copied, but the byte arrays are not and should not be modified afterwards.
+     *
+     * @param byteArrays byte arrays keyed by name, must not be null
+     * @return a new image source that decodes images from the specified in-memory byte arrays
+     */
+    public static ImageSource createByteArraySource(final Map<String, byte[]> byteArrays)
+    {
+        checkNotNull(byteArrays, "byteArrays must not be null");
+        return new ByteArrayImageSource(byteArrays);
+    }
+
+    /**
+     * Write the specified image as a raw pixel dump to the specified file, for reading with
+     * a raw pixel image source.
+     *
+     * @see #createRawPixelSource(File)
+     * @param image image to write, must not be null
+     * @param file file to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeRawPixels(final PImage image, final File file) throws IOException
+    {
+        checkNotNull(image, "image must not be null");
+        checkNotNull(file, "file must not be null");
+        RawPixelImageSource.write(image, file);
+    }
+
+    private static void checkNotNull(final Object value, final String message)
+    {
+        if (value == null)
+        {
+            throw new NullPointerException(message);
+        }
+    }
+}
@@ -56,19 +56,21 @@ public final class LoopedFramesAnimation implements Animation
         {
             throw new IllegalArgumentException("frames must not be empty");
         }
-        this.frames = new ArrayList<PImage>(frames);
+        this.frames = (frames instanceof SharedFrames) ? frames : new ArrayList<PImage>(frames);
     }
 
 
     @Override
     public boolean advance()
     {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
         index++;
         if (index == frames.size())
         {
             index = 0;
         }
-        return true;
+        return index != previous;
     }
 
     @Override
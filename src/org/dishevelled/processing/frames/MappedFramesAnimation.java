@@ -0,0 +1,131 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import processing.core.PImage;
+
+/**
+ * Frames animation that plays a frame store through a playback mode, mapping
+ * animation steps to frame indices without copying frames.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class MappedFramesAnimation implements Animation
+{
+    /** Current step. */
+    private int step = 0;
+
+    /** Frame store. */
+    private final FrameStore frames;
+
+    /** Playback mode. */
+    private final Playback playback;
+
+    /** Number of distinct frames played. */
+    private final int count;
+
+    /** Number of steps in one pass. */
+    private final int length;
+
+
+    /**
+     * Create a new mapped frames animation with the specified frame store and playback mode.
+     *
+     * @param frames frame store, must not be null
+     * @param playback playback mode, must not be null
+     */
+    MappedFramesAnimation(final FrameStore frames, final Playback playback)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (playback == null)
+        {
+            throw new NullPointerException("playback must not be null");
+        }
+        this.frames = frames;
+        this.playback = playback;
+        count = playback.count(frames.size());
+        length = playback.length(count);
+    }
+
+
+    /**
+     * Reset.
+     */
+    public void reset()
+    {
+        step = 0;
+    }
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = getIndex();
+        step++;
+        if (step == length)
+        {
+            step = playback.isLooped() ? 0 : length - 1;
+        }
+        return getIndex() != previous;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return frames.get(getIndex());
+    }
+
+    /**
+     * Return the index of the current frame in the frame store.
+     *
+     * @return the index of the current frame in the frame store
+     */
+    public int getIndex()
+    {
+        return playback.frame(step, count);
+    }
+
+    /**
+     * Return the frame store for this animation.
+     *
+     * @return the frame store for this animation
+     */
+    public FrameStore getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Return the playback mode for this animation.
+     *
+     * @return the playback mode for this animation
+     */
+    public Playback getPlayback()
+    {
+        return playback;
+    }
+}
@@ -56,7 +56,7 @@ public final class MultipleFramesAnimation implements Animation
         {
             throw new IllegalArgumentException("frames must not be empty");
         }
-        this.frames = new ArrayList<PImage>(frames);
+        this.frames = (frames instanceof SharedFrames) ? frames : new ArrayList<PImage>(frames);
     }
 
 
@@ -71,8 +71,10 @@ public final class MultipleFramesAnimation implements Animation
     @Override
     public boolean advance()
     {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
         index = Math.min(index + 1, frames.size() - 1);
-        return true;
+        return index != previous;
     }
 
     @Override
@@ -0,0 +1,70 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.File;
+import java.io.InputStream;
+
+import processing.core.PApplet;
+import processing.core.PImage;
+
+/**
+ * Image source that loads images and other resources through an applet.
+ *
+ * @author  Michael Heuer
+ */
+final class PAppletImageSource implements ImageSource
+{
+    /** Applet. */
+    private final PApplet applet;
+
+
+    /**
+     * Create a new image source for the specified applet.
+     *
+     * @param applet applet
+     */
+    PAppletImageSource(final PApplet applet)
+    {
+        this.applet = applet;
+    }
+
+
+    @Override
+    public PImage loadImage(final String imageName)
+    {
+        return applet.loadImage(imageName);
+    }
+
+    @Override
+    public InputStream createInput(final String name)
+    {
+        return applet.createInput(name);
+    }
+
+    @Override
+    public File getFile(final String name)
+    {
+        return applet.dataFile(name);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import processing.core.PImage;
+
+/**
+ * Animation backed by palette-indexed frames.  Only the current frame is expanded
+ * to ARGB pixels, into a single image reused for as long as the frame dimensions
+ * stay the same.
+ *
+ * <p>
+ * The image returned by <code>getCurrentFrame()</code> is overwritten when the
+ * current frame changes, so callers should draw it rather than hold on to it.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class PaletteFramesAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** Index of the frame last expanded into the current image, or <code>-1</code> if none. */
+    private int expanded = -1;
+
+    /** Current image, reused across frames. */
+    private PImage current;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** Palette-indexed frames. */
+    private final IndexedFrames frames;
+
+
+    /**
+     * Create a new palette frames animation with the specified indexed frames.
+     *
+     * @param frames indexed frames, must not be null
+     * @param looped true if this animation loops
+     */
+    PaletteFramesAnimation(final IndexedFrames frames, final boolean looped)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        this.frames = frames;
+        this.looped = looped;
+    }
+
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
+        index++;
+        if (index == frames.size())
+        {
+            index = looped ? 0 : frames.size() - 1;
+        }
+        return index != previous;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        if (expanded != index)
+        {
+            current = frames.expand(index, current);
+            expanded = index;
+        }
+        return current;
+    }
+
+    /**
+     * Return the index of the current frame.
+     *
+     * @return the index of the current frame
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Return the palette-indexed frames for this animation.
+     *
+     * @return the palette-indexed frames for this animation
+     */
+    public IndexedFrames getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Return true if this animation loops.
+     *
+     * @return true if this animation loops
+     */
+    public boolean isLooped()
+    {
+        return looped;
+    }
+}
@@ -0,0 +1,328 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.Arrays;
+
+import processing.core.PImage;
+
+/**
+ * Static utility methods on <code>int[]</code> pixel arrays.
+ *
+ * @author  Michael Heuer
+ */
+final class Pixels
+{
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Pixels()
+    {
+        // empty
+    }
+
+
+    /**
+     * Return the pixels of the specified image as ARGB, converting from <code>RGB</code>
+     * or <code>ALPHA</code> formats into a new array if necessary.
+     *
+     * @param image image
+     * @return the pixels of the specified image as ARGB
+     */
+    static int[] argb(final PImage image)
+    {
+        image.loadPixels();
+        int[] pixels = image.pixels;
+        if (image.format == PImage.RGB)
+        {
+            int[] argb = new int[pixels.length];
+            for (int i = 0; i < pixels.length; i++)
+            {
+                argb[i] = pixels[i] | 0xff000000;
+            }
+            return argb;
+        }
+        if (image.format == PImage.ALPHA)
+        {
+            int[] argb = new int[pixels.length];
+            for (int i = 0; i < pixels.length; i++)
+            {
+                argb[i] = (pixels[i] << 24) | 0xffffff;
+            }
+            return argb;
+        }
+        return pixels;
+    }
+
+    /**
+     * Copy <code>source</code> into <code>target</code> flipped horizontally, reversing each row.
+     * <code>source</code> and <code>target</code> must not be the same array.
+     *
+     * @param source source pixels
+     * @param target target pixels
+     * @param width width
+     * @param height height
+     */
+    static void flipHorizontally(final int[] source, final int[] target, final int width, final int height)
+    {
+        for (int row = 0, offset = 0; row < height; row++, offset += width)
+        {
+            for (int i = offset, j = offset + width - 1; j >= offset; i++, j--)
+            {
+                target[j] = source[i];
+            }
+        }
+    }
+
+    /**
+     * Flip the specified pixels horizontally in place, reversing each row.
+     *
+     * @param pixels pixels
+     * @param width width
+     * @param height height
+     */
+    static void flipHorizontally(final int[] pixels, final int width, final int height)
+    {
+        for (int row = 0, offset = 0; row < height; row++, offset += width)
+        {
+            for (int i = offset, j = offset + width - 1; i < j; i++, j--)
+            {
+                int pixel = pixels[i];
+                pixels[i] = pixels[j];
+                pixels[j] = pixel;
+            }
+        }
+    }
+
+    /**
+     * Copy <code>source</code> into <code>target</code> flipped vertically, copying rows in reverse order.
+     * <code>source</code> and <code>target</code> must not be the same array.
+     *
+     * @param source source pixels
+     * @param target target pixels
+     * @param width width
+     * @param height height
+     */
+    static void flipVertically(final int[] source, final int[] target, final int width, final int height)
+    {
+        for (int row = 0; row < height; row++)
+        {
+            System.arraycopy(source, row * width, target, (height - 1 - row) * width, width);
+        }
+    }
+
+    /**
+     * Flip the specified pixels vertically in place, swapping rows.
+     *
+     * @param pixels pixels
+     * @param width width
+     * @param height height
+     */
+    static void flipVertically(final int[] pixels, final int width, final int height)
+    {
+        int[] row = new int[width];
+        for (int top = 0, bottom = height - 1; top < bottom; top++, bottom--)
+        {
+            System.arraycopy(pixels, top * width, row, 0, width);
+            System.arraycopy(pixels, bottom * width, pixels, top * width, width);
+            System.arraycopy(row, 0, pixels, bottom * width, width);
+        }
+    }
+
+    /**
+     * Copy a <code>width</code> x <code>height</code> rectangle of pixels at <code>(sourceX, sourceY)</code>
+     * in <code>source</code> to <code>(targetX, targetY)</code> in <code>target</code>, one row at a time.
+     *
+     * @param source source pixels
+     * @param sourceStride source image width
+     * @param sourceX source x
+     * @param sourceY source y
+     * @param width width of the rectangle to copy
+     * @param height height of the rectangle to copy
+     * @param target target pixels
+     * @param targetStride target image width
+     * @param targetX target x
+     * @param targetY target y
+     */
+    static void blit(final int[] source, final int sourceStride, final int sourceX, final int sourceY,
+                     final int width, final int height,
+                     final int[] target, final int targetStride, final int targetX, final int targetY)
+    {
+        for (int row = 0; row < height; row++)
+        {
+            System.arraycopy(source, (sourceY + row) * sourceStride + sourceX,
+                             target, (targetY + row) * targetStride + targetX, width);
+        }
+    }
+
+    /**
+     * Return the sorted palette of distinct colors in the specified arrays of pixels,
+     * or null if there are more than 256 distinct colors.
+     *
+     * @param pixels one or more arrays of pixels
+     * @return the sorted palette of distinct colors in the specified arrays of pixels,
+     *    or null if there are more than 256 distinct colors
+     */
+    static int[] palette(final int[]... pixels)
+    {
+        int[] palette = new int[256];
+        int size = 0;
+        for (int[] array : pixels)
+        {
+            for (int pixel : array)
+            {
+                int insertion = Arrays.binarySearch(palette, 0, size, pixel);
+                if (insertion < 0)
+                {
+                    if (size == 256)
+                    {
+                        return null;
+                    }
+                    insertion = -insertion - 1;
+                    System.arraycopy(palette, insertion, palette, insertion + 1, size - insertion);
+                    palette[insertion] = pixel;
+                    size++;
+                }
+            }
+        }
+        return Arrays.copyOf(palette, size);
+    }
+
+    /**
+     * Downsample the specified pixels by half in each dimension with a 2x2 box filter,
+     * averaging premultiplied channels.  Odd trailing rows and columns are folded
+     * into the last target row and column.
+     *
+     * @param source source pixels
+     * @param width source width
+     * @param height source height
+     * @return new pixels, <code>max(1, width / 2)</code> x <code>max(1, height / 2)</code>
+     */
+    static int[] downsample(final int[] source, final int width, final int height)
+    {
+        int targetWidth = Math.max(1, width / 2);
+        int targetHeight = Math.max(1, height / 2);
+        int[] target = new int[targetWidth * targetHeight];
+        for (int y = 0, offset = 0; y < targetHeight; y++)
+        {
+            int y0 = 2 * y;
+            int y1 = (y == targetHeight - 1) ? height : Math.min(height, y0 + 2);
+            for (int x = 0; x < targetWidth; x++, offset++)
+            {
+                int x0 = 2 * x;
+                int x1 = (x == targetWidth - 1) ? width : Math.min(width, x0 + 2);
+                long a = 0L;
+                long r = 0L;
+                long g = 0L;
+                long b = 0L;
+                for (int sy = y0; sy < y1; sy++)
+                {
+                    for (int sx = x0; sx < x1; sx++)
+                    {
+                        int argb = source[sy * width + sx];
+                        int alpha = (argb >>> 24) & 0xff;
+                        a += alpha;
+                        r += ((argb >> 16) & 0xff) * alpha;
+                        g += ((argb >> 8) & 0xff) * alpha;
+                        b += (argb & 0xff) * alpha;
+                    }
+                }
+                if (a == 0L)
+                {
+                    continue;
+                }
+                int n = (x1 - x0) * (y1 - y0);
+                target[offset] = (int) (((a + n / 2) / n) << 24)
+                    | (int) (((r + a / 2) / a) << 16)
+                    | (int) (((g + a / 2) / a) << 8)
+                    | (int) ((b + a / 2) / a);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Upscale the specified pixels by an integer factor with nearest neighbour sampling.
+     *
+     * @param source source pixels
+     * @param width source width
+     * @param height source height
+     * @param factor scale factor
+     * @return new pixels, <code>width * factor</code> x <code>height * factor</code>
+     */
+    static int[] scaleNearest(final int[] source, final int width, final int height, final int factor)
+    {
+        int targetWidth = width * factor;
+        int[] target = new int[targetWidth * height * factor];
+        for (int y = 0; y < height; y++)
+        {
+            int row = y * factor * targetWidth;
+            for (int x = 0; x < width; x++)
+            {
+                int pixel = source[y * width + x];
+                for (int i = 0; i < factor; i++)
+                {
+                    target[row + x * factor + i] = pixel;
+                }
+            }
+            for (int i = 1; i < factor; i++)
+            {
+                System.arraycopy(target, row, target, row + i * targetWidth, targetWidth);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Upscale the specified pixels by two with the Scale2x pixel art algorithm, which
+     * smooths diagonal edges without introducing new colors.
+     *
+     * @param source source pixels
+     * @param width source width
+     * @param height source height
+     * @return new pixels, <code>width * 2</code> x <code>height * 2</code>
+     */
+    static int[] scale2x(final int[] source, final int width, final int height)
+    {
+        int targetWidth = width * 2;
+        int[] target = new int[targetWidth * height * 2];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int p = source[y * width + x];
+                int a = source[Math.max(0, y - 1) * width + x];
+                int b = source[y * width + Math.min(width - 1, x + 1)];
+                int c = source[y * width + Math.max(0, x - 1)];
+                int d = source[Math.min(height - 1, y + 1) * width + x];
+                int offset = 2 * y * targetWidth + 2 * x;
+                target[offset] = (c == a && c != d && a != b) ? a : p;
+                target[offset + 1] = (a == b && a != c && b != d) ? b : p;
+                target[offset + targetWidth] = (d == c && d != b && c != a) ? c : p;
+                target[offset + targetWidth + 1] = (b == d && b != a && d != c) ? d : p;
+            }
+        }
+        return target;
+    }
+}
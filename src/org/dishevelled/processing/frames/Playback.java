@@ -0,0 +1,244 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+/**
+ * Playback mode, an index mapping from animation steps to frames in a frame store.
+ * Playback modes are immutable and cost a few bytes each, regardless of the number
+ * of frames they play.
+ *
+ * <p>
+ * For example, to play every other frame of the first eight frames back and forth, looping:
+ * </p>
+ * <pre>
+ * Playback playback = Playback.pingPong().withRange(0, 8).withStride(2).looped();
+ * </pre>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class Playback
+{
+    /** Direction. */
+    private final Direction direction;
+
+    /** First frame index, inclusive. */
+    private final int start;
+
+    /** Last frame index, exclusive. */
+    private final int end;
+
+    /** Stride between frames. */
+    private final int stride;
+
+    /** True if playback loops, false if it holds the last step. */
+    private final boolean looped;
+
+
+    /**
+     * Create a new playback mode.
+     *
+     * @param direction direction
+     * @param start first frame index, inclusive
+     * @param end last frame index, exclusive
+     * @param stride stride between frames
+     * @param looped true if playback loops, false if it holds the last step
+     */
+    private Playback(final Direction direction, final int start, final int end, final int stride, final boolean looped)
+    {
+        this.direction = direction;
+        this.start = start;
+        this.end = end;
+        this.stride = stride;
+        this.looped = looped;
+    }
+
+
+    /**
+     * Return a new playback mode that plays all frames forward once, holding the last frame.
+     *
+     * @return a new playback mode that plays all frames forward once, holding the last frame
+     */
+    public static Playback forward()
+    {
+        return new Playback(Direction.FORWARD, 0, Integer.MAX_VALUE, 1, false);
+    }
+
+    /**
+     * Return a new playback mode that plays all frames in reverse once, holding the first frame.
+     *
+     * @return a new playback mode that plays all frames in reverse once, holding the first frame
+     */
+    public static Playback reverse()
+    {
+        return new Playback(Direction.REVERSE, 0, Integer.MAX_VALUE, 1, false);
+    }
+
+    /**
+     * Return a new playback mode that plays all frames forward and then back once, holding
+     * the first frame.  The first and last frames are not repeated at the turns.
+     *
+     * @return a new playback mode that plays all frames forward and then back once
+     */
+    public static Playback pingPong()
+    {
+        return new Playback(Direction.PING_PONG, 0, Integer.MAX_VALUE, 1, false);
+    }
+
+    /**
+     * Return a copy of this playback mode restricted to frames in the specified range.
+     * The end of the range is clipped to the number of frames in the frame store.
+     *
+     * @param start first frame index, inclusive, must be at least zero
+     * @param end last frame index, exclusive, must be greater than <code>start</code>
+     * @return a copy of this playback mode restricted to frames in the specified range
+     */
+    public Playback withRange(final int start, final int end)
+    {
+        if (start < 0)
+        {
+            throw new IllegalArgumentException("start must be at least 0");
+        }
+        if (end <= start)
+        {
+            throw new IllegalArgumentException("end must be greater than start");
+        }
+        return new Playback(direction, start, end, stride, looped);
+    }
+
+    /**
+     * Return a copy of this playback mode that plays every <code>stride</code>th frame.
+     *
+     * @param stride stride between frames, must be at least 1
+     * @return a copy of this playback mode that plays every <code>stride</code>th frame
+     */
+    public Playback withStride(final int stride)
+    {
+        if (stride < 1)
+        {
+            throw new IllegalArgumentException("stride must be at least 1");
+        }
+        return new Playback(direction, start, end, stride, looped);
+    }
+
+    /**
+     * Return a copy of this playback mode that loops.
+     *
+     * @return a copy of this playback mode that loops
+     */
+    public Playback looped()
+    {
+        return new Playback(direction, start, end, stride, true);
+    }
+
+    /**
+     * Return a copy of this playback mode that holds the last step instead of looping.
+     *
+     * @return a copy of this playback mode that holds the last step instead of looping
+     */
+    public Playback holdLast()
+    {
+        return new Playback(direction, start, end, stride, false);
+    }
+
+    /**
+     * Return true if this playback mode loops.
+     *
+     * @return true if this playback mode loops
+     */
+    public boolean isLooped()
+    {
+        return looped;
+    }
+
+    /**
+     * Return the number of distinct frames this playback mode plays over the specified
+     * number of frames.
+     *
+     * @param size number of frames
+     * @return the number of distinct frames this playback mode plays over the specified
+     *    number of frames
+     */
+    int count(final int size)
+    {
+        if (start >= size)
+        {
+            throw new IllegalArgumentException("playback range must start within the " + size + " frames");
+        }
+        int last = Math.min(end, size);
+        return (last - start + stride - 1) / stride;
+    }
+
+    /**
+     * Return the number of steps in one pass of this playback mode over the specified
+     * number of distinct frames.
+     *
+     * @param count number of distinct frames, from <code>count(int)</code>
+     * @return the number of steps in one pass of this playback mode
+     */
+    int length(final int count)
+    {
+        if (direction == Direction.PING_PONG && count > 1)
+        {
+            // looped passes do not repeat the first frame, held passes end on it
+            return looped ? 2 * count - 2 : 2 * count - 1;
+        }
+        return count;
+    }
+
+    /**
+     * Return the frame index for the specified step.
+     *
+     * @param step step, in <code>[0, length(count))</code>
+     * @param count number of distinct frames, from <code>count(int)</code>
+     * @return the frame index for the specified step
+     */
+    int frame(final int step, final int count)
+    {
+        int i = step;
+        if (direction == Direction.REVERSE)
+        {
+            i = count - 1 - i;
+        }
+        else if (direction == Direction.PING_PONG && i >= count)
+        {
+            i = 2 * count - 2 - i;
+        }
+        return start + i * stride;
+    }
+
+    /**
+     * Direction.
+     */
+    private enum Direction
+    {
+        /** Forward. */
+        FORWARD,
+
+        /** Reverse. */
+        REVERSE,
+
+        /** Forward then back. */
+        PING_PONG;
+    }
+}
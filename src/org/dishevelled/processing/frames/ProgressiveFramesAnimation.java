@@ -0,0 +1,109 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import processing.core.PImage;
+
+/**
+ * Frames animation that starts playing while its frames are still being
+ * loaded asynchronously.  The animation holds on the last available frame
+ * until the next frame has been loaded.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class ProgressiveFramesAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** Asynchronous list of frames. */
+    private final AsyncFrameList frames;
+
+
+    /**
+     * Create a new progressive frames animation with the specified asynchronous list of frames.
+     * The first frame must have already been loaded.
+     *
+     * @param frames asynchronous list of frames, must not be null
+     * @param looped true if this animation loops
+     */
+    ProgressiveFramesAnimation(final AsyncFrameList frames, final boolean looped)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.getAvailableCount() < 1)
+        {
+            throw new IllegalArgumentException("first frame must be loaded");
+        }
+        this.frames = frames;
+        this.looped = looped;
+    }
+
+
+    /**
+     * Reset.
+     */
+    public void reset()
+    {
+        index = 0;
+    }
+
+    /**
+     * Return true if all the frames for this animation have been loaded.
+     *
+     * @return true if all the frames for this animation have been loaded
+     */
+    public boolean isLoaded()
+    {
+        return frames.getAvailableCount() == frames.size();
+    }
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
+        int next = index + 1;
+        if (next < frames.getAvailableCount())
+        {
+            index = next;
+        }
+        else if (next == frames.size() && looped)
+        {
+            index = 0;
+        }
+        return index != previous;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return frames.frame(index);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Frames animation backed by a frame pyramid, drawing the pre-scaled level
+ * closest to the requested draw size.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class PyramidAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** Frame pyramid. */
+    private final FramePyramid pyramid;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+
+    /**
+     * Create a new pyramid animation with the specified frame pyramid.
+     *
+     * @param pyramid frame pyramid, must not be null
+     * @param looped true if this animation loops
+     */
+    PyramidAnimation(final FramePyramid pyramid, final boolean looped)
+    {
+        if (pyramid == null)
+        {
+            throw new NullPointerException("pyramid must not be null");
+        }
+        this.pyramid = pyramid;
+        this.looped = looped;
+    }
+
+
+    /**
+     * Reset.
+     */
+    public void reset()
+    {
+        index = 0;
+    }
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
+        index++;
+        if (index == pyramid.size())
+        {
+            index = looped ? 0 : pyramid.size() - 1;
+        }
+        return index != previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Returns the original frame image for the current frame.
+     * </p>
+     */
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return pyramid.getFrame(index);
+    }
+
+    /**
+     * Return the current frame at the level closest to the specified draw size.
+     *
+     * @param width draw width, must be greater than zero
+     * @param height draw height, must be greater than zero
+     * @return the current frame at the level closest to the specified draw size
+     */
+    public PImage getCurrentFrame(final float width, final float height)
+    {
+        return pyramid.getFrame(index, width, height);
+    }
+
+    /**
+     * Draw the current frame to the specified graphics at <code>(x, y)</code>
+     * at its original size.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     */
+    public void draw(final PGraphics graphics, final float x, final float y)
+    {
+        PImage frame = getCurrentFrame();
+        draw(graphics, x, y, frame.width, frame.height);
+    }
+
+    /**
+     * Draw the current frame to the specified graphics at <code>(x, y)</code>, scaled
+     * to the specified width and height from the level closest to that size.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw
+     * @param height height to draw
+     */
+    public void draw(final PGraphics graphics, final float x, final float y, final float width, final float height)
+    {
+        if (graphics == null)
+        {
+            throw new NullPointerException("graphics must not be null");
+        }
+        graphics.image(getCurrentFrame(width, height), x, y, width, height);
+    }
+
+    /**
+     * Return the index of the current frame.
+     *
+     * @return the index of the current frame
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Return the frame pyramid for this animation.
+     *
+     * @return the frame pyramid for this animation
+     */
+    public FramePyramid getPyramid()
+    {
+        return pyramid;
+    }
+}
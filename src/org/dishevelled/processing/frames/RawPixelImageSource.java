@@ -0,0 +1,171 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.file.StandardOpenOption;
+
+import processing.core.PImage;
+
+/**
+ * Image source that reads raw pixel dumps in a directory through file channels,
+ * without decoding.
+ *
+ * <p>
+ * A raw pixel dump contains a fixed size header followed by pixels in the image format,
+ * row by row.  All values are big-endian.
+ * </p>
+ * <pre>
+ * dump := magic:int("FRPX") width:int height:int format:int pixels:int[width * height]
+ * </pre>
+ *
+ * @author  Michael Heuer
+ */
+final class RawPixelImageSource implements ImageSource
+{
+    /** Directory. */
+    private final File directory;
+
+    /** Raw pixel dump magic number, <code>"FRPX"</code>. */
+    static final int MAGIC = 0x46525058;
+
+    /** Header size in bytes. */
+    static final int HEADER_SIZE = 16;
+
+
+    /**
+     * Create a new raw pixel image source for the specified directory.
+     *
+     * @param directory directory
+     */
+    RawPixelImageSource(final File directory)
+    {
+        this.directory = directory;
+    }
+
+
+    @Override
+    public PImage loadImage(final String imageName) throws IOException
+    {
+        File file = getFile(imageName);
+        if (!file.isFile())
+        {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+            {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer) < 0)
+                {
+                    throw new EOFException("unexpected end of raw pixel dump " + file);
+                }
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    @Override
+    public InputStream createInput(final String name) throws IOException
+    {
+        File file = getFile(name);
+        return file.isFile() ? new BufferedInputStream(new FileInputStream(file)) : null;
+    }
+
+    @Override
+    public File getFile(final String name)
+    {
+        File file = new File(name);
+        return file.isAbsolute() ? file : new File(directory, name);
+    }
+
+    /**
+     * Decode the raw pixel dump in the specified buffer.
+     *
+     * @param buffer buffer
+     * @return the image decoded from the raw pixel dump in the specified buffer, or null
+     *    if the buffer does not contain a raw pixel dump
+     * @throws IOException if the raw pixel dump is malformed
+     */
+    static PImage decode(final ByteBuffer buffer) throws IOException
+    {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(buffer.position()) != MAGIC)
+        {
+            return null;
+        }
+        buffer.getInt();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int format = buffer.getInt();
+        if (width < 1 || height < 1 || (format != PImage.RGB && format != PImage.ARGB && format != PImage.ALPHA)
+            || ((long) width * height * 4L) != buffer.remaining())
+        {
+            throw new IOException("malformed raw pixel dump");
+        }
+        PImage image = new PImage(width, height, format);
+        buffer.asIntBuffer().get(image.pixels);
+        return image;
+    }
+
+    /**
+     * Write the specified image as a raw pixel dump to the specified file.
+     *
+     * @param image image
+     * @param file file
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(final PImage image, final File file) throws IOException
+    {
+        image.loadPixels();
+        int size = image.width * image.height;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * size);
+        buffer.putInt(MAGIC).putInt(image.width).putInt(image.height).putInt(image.format);
+        buffer.asIntBuffer().put(image.pixels, 0, size);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Rectangular region of a sprite sheet image.  Regions share their sprite sheet
+ * image instead of copying its pixels, and are drawn with the sub-rectangle form of
+ * <code>image(...)</code>.
+ *
+ * <p>
+ * Regions packed into a texture atlas may have had transparent borders trimmed.  The
+ * offset of a trimmed region within its original frame and the size of that original
+ * frame are preserved, so that trimmed regions draw at the same location as the original.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class Region
+{
+    /** Sprite sheet image. */
+    private final PImage sheet;
+
+    /** Region x. */
+    private final int x;
+
+    /** Region y. */
+    private final int y;
+
+    /** Region width. */
+    private final int width;
+
+    /** Region height. */
+    private final int height;
+
+    /** Offset x of this region within its original frame. */
+    private final int offsetX;
+
+    /** Offset y of this region within its original frame. */
+    private final int offsetY;
+
+    /** Original frame width. */
+    private final int sourceWidth;
+
+    /** Original frame height. */
+    private final int sourceHeight;
+
+
+    /**
+     * Create a new region of the specified sprite sheet image.
+     *
+     * @param sheet sprite sheet image, must not be null
+     * @param x region x, must be at least zero
+     * @param y region y, must be at least zero
+     * @param width region width, must be at least zero
+     * @param height region height, must be at least zero
+     */
+    public Region(final PImage sheet, final int x, final int y, final int width, final int height)
+    {
+        this(sheet, x, y, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * Create a new trimmed region of the specified sprite sheet image.
+     *
+     * @param sheet sprite sheet image, must not be null
+     * @param x region x, must be at least zero
+     * @param y region y, must be at least zero
+     * @param width region width, must be at least zero
+     * @param height region height, must be at least zero
+     * @param offsetX offset x of this region within its original frame, must be at least zero
+     * @param offsetY offset y of this region within its original frame, must be at least zero
+     * @param sourceWidth original frame width, must be at least <code>offsetX + width</code>
+     * @param sourceHeight original frame height, must be at least <code>offsetY + height</code>
+     */
+    public Region(final PImage sheet, final int x, final int y, final int width, final int height,
+                  final int offsetX, final int offsetY, final int sourceWidth, final int sourceHeight)
+    {
+        if (sheet == null)
+        {
+            throw new NullPointerException("sheet must not be null");
+        }
+        if (x < 0)
+        {
+            throw new IllegalArgumentException("x must be at least 0");
+        }
+        if (y < 0)
+        {
+            throw new IllegalArgumentException("y must be at least 0");
+        }
+        if (width < 0)
+        {
+            throw new IllegalArgumentException("width must be at least 0");
+        }
+        if (height < 0)
+        {
+            throw new IllegalArgumentException("height must be at least 0");
+        }
+        if (offsetX < 0)
+        {
+            throw new IllegalArgumentException("offsetX must be at least 0");
+        }
+        if (offsetY < 0)
+        {
+            throw new IllegalArgumentException("offsetY must be at least 0");
+        }
+        if (sourceWidth < offsetX + width)
+        {
+            throw new IllegalArgumentException("sourceWidth must be at least offsetX + width");
+        }
+        if (sourceHeight < offsetY + height)
+        {
+            throw new IllegalArgumentException("sourceHeight must be at least offsetY + height");
+        }
+        this.sheet = sheet;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+    }
+
+
+    /**
+     * Return the sprite sheet image for this region.
+     *
+     * @return the sprite sheet image for this region
+     */
+    public PImage getSheet()
+    {
+        return sheet;
+    }
+
+    /**
+     * Return the x location of this region in its sprite sheet image.
+     *
+     * @return the x location of this region in its sprite sheet image
+     */
+    public int getX()
+    {
+        return x;
+    }
+
+    /**
+     * Return the y location of this region in its sprite sheet image.
+     *
+     * @return the y location of this region in its sprite sheet image
+     */
+    public int getY()
+    {
+        return y;
+    }
+
+    /**
+     * Return the width of this region.
+     *
+     * @return the width of this region
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the height of this region.
+     *
+     * @return the height of this region
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+
+    /**
+     * Return the offset x of this region within its original frame.
+     *
+     * @return the offset x of this region within its original frame
+     */
+    public int getOffsetX()
+    {
+        return offsetX;
+    }
+
+    /**
+     * Return the offset y of this region within its original frame.
+     *
+     * @return the offset y of this region within its original frame
+     */
+    public int getOffsetY()
+    {
+        return offsetY;
+    }
+
+    /**
+     * Return the width of the original frame for this region.
+     *
+     * @return the width of the original frame for this region
+     */
+    public int getSourceWidth()
+    {
+        return sourceWidth;
+    }
+
+    /**
+     * Return the height of the original frame for this region.
+     *
+     * @return the height of the original frame for this region
+     */
+    public int getSourceHeight()
+    {
+        return sourceHeight;
+    }
+
+    /**
+     * Return true if this region has been trimmed from its original frame.
+     *
+     * @return true if this region has been trimmed from its original frame
+     */
+    public boolean isTrimmed()
+    {
+        return width != sourceWidth || height != sourceHeight;
+    }
+
+    /**
+     * Draw this region to the specified graphics at <code>(x, y)</code>.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     */
+    public void draw(final PGraphics graphics, final float x, final float y)
+    {
+        draw(graphics, x, y, sourceWidth, sourceHeight);
+    }
+
+    /**
+     * Draw this region to the specified graphics at <code>(x, y)</code>, scaling
+     * its original frame to the specified width and height.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw
+     * @param height height to draw
+     */
+    public void draw(final PGraphics graphics, final float x, final float y, final float width, final float height)
+    {
+        if (graphics == null)
+        {
+            throw new NullPointerException("graphics must not be null");
+        }
+        if (isTrimmed())
+        {
+            float sx = width / sourceWidth;
+            float sy = height / sourceHeight;
+            graphics.image(sheet, x + offsetX * sx, y + offsetY * sy, this.width * sx, this.height * sy,
+                           this.x, this.y, this.x + this.width, this.y + this.height);
+        }
+        else
+        {
+            graphics.image(sheet, x, y, width, height, this.x, this.y, this.x + this.width, this.y + this.height);
+        }
+    }
+
+    /**
+     * Create and return a new image containing a copy of the pixels in this region,
+     * restoring any trimmed transparent borders.
+     *
+     * @return a new image containing a copy of the pixels in this region
+     */
+    public PImage toImage()
+    {
+        if (!isTrimmed())
+        {
+            return sheet.get(x, y, width, height);
+        }
+        PImage image = new PImage(sourceWidth, sourceHeight, PImage.ARGB);
+        Pixels.blit(Pixels.argb(sheet), sheet.width, x, y, width, height, image.pixels, sourceWidth, offsetX, offsetY);
+        image.updatePixels();
+        return image;
+    }
+}
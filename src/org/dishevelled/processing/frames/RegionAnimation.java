@@ -0,0 +1,135 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.List;
+
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Frames animation backed by regions of one or more sprite sheet images.
+ *
+ * <p>
+ * Prefer {@link #draw(PGraphics, float, float)} to drawing {@link #getCurrentFrame()},
+ * which copies the pixels of each region into a new frame image the first time it is called
+ * for that region.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class RegionAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** Array of regions. */
+    private final Region[] regions;
+
+    /** Array of frame images copied from regions, created lazily. */
+    private PImage[] frames;
+
+
+    /**
+     * Create a new region animation with the specified list of regions.
+     *
+     * @param regions list of regions, must not be null or empty
+     * @param looped true if this animation loops
+     */
+    RegionAnimation(final List<Region> regions, final boolean looped)
+    {
+        if (regions == null)
+        {
+            throw new NullPointerException("regions must not be null");
+        }
+        if (regions.isEmpty())
+        {
+            throw new IllegalArgumentException("regions must not be empty");
+        }
+        this.regions = regions.toArray(new Region[regions.size()]);
+        this.looped = looped;
+    }
+
+
+    /**
+     * Reset.
+     */
+    public void reset()
+    {
+        index = 0;
+    }
+
+    /**
+     * Return the current region for this animation.
+     * The current region will not be null.
+     *
+     * @return the current region for this animation
+     */
+    public Region getCurrentRegion()
+    {
+        return regions[index];
+    }
+
+    /**
+     * Draw the current region for this animation to the specified graphics at <code>(x, y)</code>.
+     *
+     * @param graphics graphics to draw to, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     */
+    public void draw(final PGraphics graphics, final float x, final float y)
+    {
+        regions[index].draw(graphics, x, y);
+    }
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int previous = index;
+        index++;
+        if (index == regions.length)
+        {
+            index = looped ? 0 : regions.length - 1;
+        }
+        return index != previous;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        if (frames == null)
+        {
+            frames = new PImage[regions.length];
+        }
+        if (frames[index] == null)
+        {
+            frames[index] = regions[index].toImage();
+        }
+        return frames[index];
+    }
+}
@@ -0,0 +1,285 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import java.util.function.IntConsumer;
+
+import java.util.stream.IntStream;
+
+import processing.core.PImage;
+
+/**
+ * Rotations of an image 360 degrees in a number of steps, rendered lazily.
+ *
+ * <p>
+ * Each step is rendered the first time it is requested, into its own
+ * square frame image as wide as the larger of the source image width and height,
+ * and then cached.  Steps that are never requested cost nothing.  Steps may be
+ * rendered with nearest neighbour sampling, which preserves hard edges in pixel art,
+ * or with bilinear sampling.  Rotations are safe for use by multiple threads.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class Rotations
+{
+    /** Source pixels as ARGB. */
+    private final int[] pixels;
+
+    /** Source width. */
+    private final int width;
+
+    /** Source height. */
+    private final int height;
+
+    /** Frame size. */
+    private final int size;
+
+    /** True if steps are rendered with bilinear sampling. */
+    private final boolean smooth;
+
+    /** Rendered steps, null until rendered. */
+    private final AtomicReferenceArray<PImage> frames;
+
+    /** List view of the steps. */
+    private final List<PImage> list = new FrameList();
+
+
+    /**
+     * Create new rotations of the specified image.
+     *
+     * @param image image, must not be null
+     * @param steps number of steps, must be at least one
+     * @param smooth true to render steps with bilinear sampling, false for nearest neighbour
+     */
+    Rotations(final PImage image, final int steps, final boolean smooth)
+    {
+        if (image == null)
+        {
+            throw new NullPointerException("image must not be null");
+        }
+        if (steps < 1)
+        {
+            throw new IllegalArgumentException("steps must be at least 1");
+        }
+        this.pixels = Pixels.argb(image).clone();
+        this.width = image.width;
+        this.height = image.height;
+        this.size = Math.max(width, height);
+        this.smooth = smooth;
+        this.frames = new AtomicReferenceArray<PImage>(steps);
+    }
+
+
+    /**
+     * Return the number of steps.
+     *
+     * @return the number of steps
+     */
+    public int size()
+    {
+        return frames.length();
+    }
+
+    /**
+     * Return true if steps are rendered with bilinear sampling.
+     *
+     * @return true if steps are rendered with bilinear sampling
+     */
+    public boolean isSmooth()
+    {
+        return smooth;
+    }
+
+    /**
+     * Return the frame image for the specified step, rendering it if necessary.
+     *
+     * @param step step, from zero to <code>size() - 1</code>
+     * @return the frame image for the specified step
+     */
+    public PImage get(final int step)
+    {
+        PImage frame = frames.get(step);
+        if (frame == null)
+        {
+            frame = render(step);
+            if (!frames.compareAndSet(step, null, frame))
+            {
+                frame = frames.get(step);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Return the frame image for the step nearest the specified angle, rendering it if necessary.
+     *
+     * @param radians angle in radians
+     * @return the frame image for the step nearest the specified angle
+     */
+    public PImage getAngle(final double radians)
+    {
+        int steps = size();
+        double turns = radians / (2.0d * Math.PI);
+        int step = (int) Math.round((turns - Math.floor(turns)) * steps) % steps;
+        return get(step);
+    }
+
+    /**
+     * Render all the steps not yet rendered, in parallel.
+     *
+     * @return these rotations
+     */
+    public Rotations prefetch()
+    {
+        IntStream.range(0, size()).parallel().forEach(new IntConsumer()
+            {
+                @Override
+                public void accept(final int step)
+                {
+                    get(step);
+                }
+            });
+        return this;
+    }
+
+    /**
+     * Return an unmodifiable list view of the steps.  Steps are rendered when accessed.
+     *
+     * @return an unmodifiable list view of the steps
+     */
+    public List<PImage> asList()
+    {
+        return list;
+    }
+
+    private PImage render(final int step)
+    {
+        long start = System.nanoTime();
+        PImage frame = new PImage(size, size, PImage.ARGB);
+        int[] target = frame.pixels;
+        double r = step * (2.0d / (double) size()) * Math.PI;
+        double cos = Math.cos(r);
+        double sin = Math.sin(r);
+        double cx = width / 2.0d;
+        double cy = height / 2.0d;
+        for (int y = 0, offset = 0; y < size; y++)
+        {
+            double py = y + 0.5d - cy;
+            for (int x = 0; x < size; x++, offset++)
+            {
+                double px = x + 0.5d - cx;
+                double sx = cos * px + sin * py + cx;
+                double sy = -sin * px + cos * py + cy;
+                target[offset] = smooth ? bilinear(sx - 0.5d, sy - 0.5d) : nearest(sx, sy);
+            }
+        }
+        frame.updatePixels();
+        FramesMetrics.getInstance().recordTransform("rotate", System.nanoTime() - start);
+        return FramesMetrics.getInstance().track(frame);
+    }
+
+    private int nearest(final double sx, final double sy)
+    {
+        int x = (int) Math.floor(sx);
+        int y = (int) Math.floor(sy);
+        if (x < 0 || y < 0 || x >= width || y >= height)
+        {
+            return 0;
+        }
+        return pixels[y * width + x];
+    }
+
+    private int sample(final int x, final int y)
+    {
+        if (x < 0 || y < 0 || x >= width || y >= height)
+        {
+            return 0;
+        }
+        return pixels[y * width + x];
+    }
+
+    private int bilinear(final double sx, final double sy)
+    {
+        int x0 = (int) Math.floor(sx);
+        int y0 = (int) Math.floor(sy);
+        if (x0 < -1 || y0 < -1 || x0 >= width || y0 >= height)
+        {
+            return 0;
+        }
+        double fx = sx - x0;
+        double fy = sy - y0;
+        int[] samples = { sample(x0, y0), sample(x0 + 1, y0), sample(x0, y0 + 1), sample(x0 + 1, y0 + 1) };
+        double[] weights = { (1.0d - fx) * (1.0d - fy), fx * (1.0d - fy), (1.0d - fx) * fy, fx * fy };
+
+        // interpolate premultiplied channels to avoid dark fringes at transparent edges
+        double a = 0.0d;
+        double r = 0.0d;
+        double g = 0.0d;
+        double b = 0.0d;
+        for (int i = 0; i < 4; i++)
+        {
+            int argb = samples[i];
+            double alpha = ((argb >>> 24) & 0xff) * weights[i];
+            a += alpha;
+            r += ((argb >> 16) & 0xff) * alpha;
+            g += ((argb >> 8) & 0xff) * alpha;
+            b += (argb & 0xff) * alpha;
+        }
+        if (a < 0.5d)
+        {
+            return 0;
+        }
+        return (clamp(a) << 24) | (clamp(r / a) << 16) | (clamp(g / a) << 8) | clamp(b / a);
+    }
+
+    private static int clamp(final double value)
+    {
+        return Math.max(0, Math.min(255, (int) Math.round(value)));
+    }
+
+    /**
+     * Unmodifiable list view of the steps.
+     */
+    private final class FrameList extends AbstractList<PImage> implements RandomAccess
+    {
+        @Override
+        public PImage get(final int step)
+        {
+            return Rotations.this.get(step);
+        }
+
+        @Override
+        public int size()
+        {
+            return Rotations.this.size();
+        }
+    }
+}
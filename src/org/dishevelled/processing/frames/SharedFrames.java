@@ -0,0 +1,38 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+/**
+ * Marker interface for unmodifiable lists of frame images that animations
+ * and transformed frames may share without copying.  Implementations must
+ * not change which frame image is returned for an index once it has been returned.
+ *
+ * @see FrameStore
+ * @see TransformedFrames
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+interface SharedFrames
+{
+    // empty
+}
@@ -0,0 +1,470 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import processing.core.PConstants;
+import processing.core.PGraphics;
+import processing.core.PImage;
+
+/**
+ * Batch of sprites submitted over the course of one frame and drawn together,
+ * grouped by backing texture.
+ *
+ * <p>
+ * On OpenGL renderers (<code>P2D</code> and <code>P3D</code>) all the sprites sharing a
+ * texture, e.g. all the regions of one sprite sheet or texture atlas page, are emitted as a
+ * single textured <code>QUADS</code> shape, so each texture is bound and drawn once rather
+ * than once per sprite.  Other renderers fall back to one <code>image</code> call per sprite.
+ * </p>
+ *
+ * <p>
+ * Sprites are drawn grouped by texture, in the order each texture was first submitted,
+ * and in submission order within each texture.  Sprites that must overlap in a particular
+ * order across textures should be drawn in separate batches.  Submission state is stored
+ * in primitive arrays and reused from frame to frame.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class SpriteBatch
+{
+    /** Number of floats per sprite: quad x, y, width, height, pivot x, y, and rotation. */
+    private static final int GEOMETRY_STRIDE = 7;
+
+    /** Number of floats per sprite: texture u0, v0, u1, v1 in pixels. */
+    private static final int TEXTURE_STRIDE = 4;
+
+    /** Sprite geometry, indexed by sprite. */
+    private float[] geometry = new float[64 * GEOMETRY_STRIDE];
+
+    /** Sprite texture coordinates, indexed by sprite. */
+    private float[] texCoords = new float[64 * TEXTURE_STRIDE];
+
+    /** Texture id, indexed by sprite. */
+    private int[] textureIds = new int[64];
+
+    /** Number of sprites submitted. */
+    private int size = 0;
+
+    /** Textures, indexed by texture id in the order first submitted. */
+    private PImage[] textures = new PImage[8];
+
+    /** Texture ids keyed by texture. */
+    private final Map<PImage, Integer> textureIdMap = new IdentityHashMap<PImage, Integer>();
+
+    /** Number of textures submitted. */
+    private int textureCount = 0;
+
+    /** Draw order, reused from frame to frame. */
+    private int[] order = new int[64];
+
+
+    /**
+     * Create a new empty sprite batch.
+     */
+    SpriteBatch()
+    {
+        // empty
+    }
+
+
+    /**
+     * Submit the current frame of the specified animation at <code>(x, y)</code> at its original size.
+     *
+     * @param animation animation, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     */
+    public void add(final Animation animation, final float x, final float y)
+    {
+        if (animation == null)
+        {
+            throw new NullPointerException("animation must not be null");
+        }
+        if (animation instanceof RegionAnimation)
+        {
+            Region region = ((RegionAnimation) animation).getCurrentRegion();
+            add(region, x, y, region.getSourceWidth(), region.getSourceHeight(), 0.0f);
+        }
+        else
+        {
+            PImage frame = animation.getCurrentFrame();
+            add(frame, x, y, frame.width, frame.height, 0.0f);
+        }
+    }
+
+    /**
+     * Submit the current frame of the specified animation at <code>(x, y)</code>, scaled
+     * to the specified width and height.  A negative width or height flips the frame.
+     *
+     * @param animation animation, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw, negative to flip horizontally
+     * @param height height to draw, negative to flip vertically
+     */
+    public void add(final Animation animation, final float x, final float y, final float width, final float height)
+    {
+        add(animation, x, y, width, height, 0.0f);
+    }
+
+    /**
+     * Submit the current frame of the specified animation at <code>(x, y)</code>, scaled
+     * to the specified width and height and rotated about its center.  A negative width or height
+     * flips the frame.
+     *
+     * <p>
+     * Region animations submit their current region of the sprite sheet, so that every region
+     * of one sheet shares one texture.  Pyramid animations submit the level closest to the
+     * specified size.
+     * </p>
+     *
+     * @param animation animation, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw, negative to flip horizontally
+     * @param height height to draw, negative to flip vertically
+     * @param rotation rotation in radians
+     */
+    public void add(final Animation animation, final float x, final float y, final float width, final float height,
+                    final float rotation)
+    {
+        if (animation == null)
+        {
+            throw new NullPointerException("animation must not be null");
+        }
+        if (animation instanceof RegionAnimation)
+        {
+            add(((RegionAnimation) animation).getCurrentRegion(), x, y, width, height, rotation);
+        }
+        else if (animation instanceof PyramidAnimation)
+        {
+            add(((PyramidAnimation) animation).getCurrentFrame(Math.abs(width), Math.abs(height)), x, y, width, height, rotation);
+        }
+        else
+        {
+            add(animation.getCurrentFrame(), x, y, width, height, rotation);
+        }
+    }
+
+    /**
+     * Submit the specified region at <code>(x, y)</code>, scaling its original frame to the
+     * specified width and height and rotating it about its center.  A negative width or height
+     * flips the region.
+     *
+     * @param region region, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw, negative to flip horizontally
+     * @param height height to draw, negative to flip vertically
+     * @param rotation rotation in radians
+     */
+    public void add(final Region region, final float x, final float y, final float width, final float height,
+                    final float rotation)
+    {
+        if (region == null)
+        {
+            throw new NullPointerException("region must not be null");
+        }
+        boolean flipX = width < 0.0f;
+        boolean flipY = height < 0.0f;
+        float w = Math.abs(width);
+        float h = Math.abs(height);
+        float sx = w / region.getSourceWidth();
+        float sy = h / region.getSourceHeight();
+        int offsetX = flipX ? region.getSourceWidth() - region.getOffsetX() - region.getWidth() : region.getOffsetX();
+        int offsetY = flipY ? region.getSourceHeight() - region.getOffsetY() - region.getHeight() : region.getOffsetY();
+        submit(region.getSheet(), x + offsetX * sx, y + offsetY * sy, region.getWidth() * sx, region.getHeight() * sy,
+               x + w / 2.0f, y + h / 2.0f, rotation,
+               region.getX(), region.getY(), region.getX() + region.getWidth(), region.getY() + region.getHeight(), flipX, flipY);
+    }
+
+    /**
+     * Submit the specified image at <code>(x, y)</code>, scaled to the specified width and height
+     * and rotated about its center.  A negative width or height flips the image.
+     *
+     * @param image image, must not be null
+     * @param x x location to draw at
+     * @param y y location to draw at
+     * @param width width to draw, negative to flip horizontally
+     * @param height height to draw, negative to flip vertically
+     * @param rotation rotation in radians
+     */
+    public void add(final PImage image, final float x, final float y, final float width, final float height,
+                    final float rotation)
+    {
+        if (image == null)
+        {
+            throw new NullPointerException("image must not be null");
+        }
+        float w = Math.abs(width);
+        float h = Math.abs(height);
+        submit(image, x, y, w, h, x + w / 2.0f, y + h / 2.0f, rotation,
+               0, 0, image.width, image.height, width < 0.0f, height < 0.0f);
+    }
+
+    /**
+     * Return the number of sprites submitted since this batch was last drawn or cleared.
+     *
+     * @return the number of sprites submitted since this batch was last drawn or cleared
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Return the number of distinct textures submitted since this batch was last drawn or cleared.
+     * On OpenGL renderers this is the number of shapes drawn by <code>draw</code>.
+     *
+     * @return the number of distinct textures submitted since this batch was last drawn or cleared
+     */
+    public int getTextureCount()
+    {
+        return textureCount;
+    }
+
+    /**
+     * Remove all the sprites submitted to this batch.
+     */
+    public void clear()
+    {
+        Arrays.fill(textures, 0, textureCount, null);
+        textureIdMap.clear();
+        textureCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Draw all the sprites submitted to this batch to the specified graphics, grouped by
+     * texture, and then clear this batch.
+     *
+     * @param graphics graphics to draw to, must not be null
+     */
+    public void draw(final PGraphics graphics)
+    {
+        if (graphics == null)
+        {
+            throw new NullPointerException("graphics must not be null");
+        }
+        long start = System.nanoTime();
+        sort();
+        if (graphics.isGL())
+        {
+            drawQuads(graphics);
+        }
+        else
+        {
+            drawImages(graphics);
+        }
+        FramesMetrics.getInstance().recordTransform("drawSpriteBatch", System.nanoTime() - start);
+        clear();
+    }
+
+    private void submit(final PImage texture, final float quadX, final float quadY, final float quadWidth, final float quadHeight,
+                        final float pivotX, final float pivotY, final float rotation,
+                        final float u0, final float v0, final float u1, final float v1, final boolean flipX, final boolean flipY)
+    {
+        if (size == textureIds.length)
+        {
+            int capacity = size * 2;
+            geometry = Arrays.copyOf(geometry, capacity * GEOMETRY_STRIDE);
+            texCoords = Arrays.copyOf(texCoords, capacity * TEXTURE_STRIDE);
+            textureIds = Arrays.copyOf(textureIds, capacity);
+        }
+        Integer textureId = textureIdMap.get(texture);
+        if (textureId == null)
+        {
+            if (textureCount == textures.length)
+            {
+                textures = Arrays.copyOf(textures, textureCount * 2);
+            }
+            textures[textureCount] = texture;
+            textureId = Integer.valueOf(textureCount++);
+            textureIdMap.put(texture, textureId);
+        }
+        textureIds[size] = textureId.intValue();
+
+        int g = size * GEOMETRY_STRIDE;
+        geometry[g] = quadX;
+        geometry[g + 1] = quadY;
+        geometry[g + 2] = quadWidth;
+        geometry[g + 3] = quadHeight;
+        geometry[g + 4] = pivotX;
+        geometry[g + 5] = pivotY;
+        geometry[g + 6] = rotation;
+
+        // flip by swapping texture coordinates
+        int t = size * TEXTURE_STRIDE;
+        texCoords[t] = flipX ? u1 : u0;
+        texCoords[t + 1] = flipY ? v1 : v0;
+        texCoords[t + 2] = flipX ? u0 : u1;
+        texCoords[t + 3] = flipY ? v0 : v1;
+        size++;
+    }
+
+    /**
+     * Counting sort the submitted sprites by texture id into the draw order, stable
+     * within each texture.
+     */
+    private void sort()
+    {
+        if (order.length < size)
+        {
+            order = new int[textureIds.length];
+        }
+        int[] starts = new int[textureCount + 1];
+        for (int i = 0; i < size; i++)
+        {
+            starts[textureIds[i] + 1]++;
+        }
+        for (int i = 0; i < textureCount; i++)
+        {
+            starts[i + 1] += starts[i];
+        }
+        for (int i = 0; i < size; i++)
+        {
+            order[starts[textureIds[i]]++] = i;
+        }
+    }
+
+    /**
+     * Draw the sorted sprites as one textured quads shape per texture.
+     *
+     * @param graphics OpenGL graphics
+     */
+    private void drawQuads(final PGraphics graphics)
+    {
+        boolean stroke = graphics.stroke;
+        int strokeColor = graphics.strokeColor;
+        int textureMode = graphics.textureMode;
+        graphics.noStroke();
+        graphics.textureMode(PConstants.IMAGE);
+        float[] xs = new float[4];
+        float[] ys = new float[4];
+        int i = 0;
+        while (i < size)
+        {
+            int textureId = textureIds[order[i]];
+            graphics.beginShape(PConstants.QUADS);
+            graphics.texture(textures[textureId]);
+            for (; i < size && textureIds[order[i]] == textureId; i++)
+            {
+                int sprite = order[i];
+                corners(sprite, xs, ys);
+                int t = sprite * TEXTURE_STRIDE;
+                graphics.vertex(xs[0], ys[0], texCoords[t], texCoords[t + 1]);
+                graphics.vertex(xs[1], ys[1], texCoords[t + 2], texCoords[t + 1]);
+                graphics.vertex(xs[2], ys[2], texCoords[t + 2], texCoords[t + 3]);
+                graphics.vertex(xs[3], ys[3], texCoords[t], texCoords[t + 3]);
+            }
+            graphics.endShape();
+        }
+        graphics.textureMode(textureMode);
+        if (stroke)
+        {
+            graphics.stroke(strokeColor);
+        }
+    }
+
+    /**
+     * Draw the sorted sprites one <code>image</code> call at a time.
+     *
+     * @param graphics graphics
+     */
+    private void drawImages(final PGraphics graphics)
+    {
+        int imageMode = graphics.imageMode;
+        graphics.imageMode(PConstants.CORNER);
+        for (int i = 0; i < size; i++)
+        {
+            int sprite = order[i];
+            PImage texture = textures[textureIds[sprite]];
+            int g = sprite * GEOMETRY_STRIDE;
+            int t = sprite * TEXTURE_STRIDE;
+            float rotation = geometry[g + 6];
+            int u0 = Math.round(texCoords[t]);
+            int v0 = Math.round(texCoords[t + 1]);
+            int u1 = Math.round(texCoords[t + 2]);
+            int v1 = Math.round(texCoords[t + 3]);
+            if (rotation == 0.0f)
+            {
+                graphics.image(texture, geometry[g], geometry[g + 1], geometry[g + 2], geometry[g + 3], u0, v0, u1, v1);
+            }
+            else
+            {
+                graphics.pushMatrix();
+                graphics.translate(geometry[g + 4], geometry[g + 5]);
+                graphics.rotate(rotation);
+                graphics.image(texture, geometry[g] - geometry[g + 4], geometry[g + 1] - geometry[g + 5],
+                               geometry[g + 2], geometry[g + 3], u0, v0, u1, v1);
+                graphics.popMatrix();
+            }
+        }
+        graphics.imageMode(imageMode);
+    }
+
+    /**
+     * Compute the corners of the quad for the specified sprite, clockwise from top left.
+     *
+     * @param sprite sprite
+     * @param xs corner x coordinates
+     * @param ys corner y coordinates
+     */
+    private void corners(final int sprite, final float[] xs, final float[] ys)
+    {
+        int g = sprite * GEOMETRY_STRIDE;
+        float x0 = geometry[g];
+        float y0 = geometry[g + 1];
+        float x1 = x0 + geometry[g + 2];
+        float y1 = y0 + geometry[g + 3];
+        xs[0] = x0;
+        ys[0] = y0;
+        xs[1] = x1;
+        ys[1] = y0;
+        xs[2] = x1;
+        ys[2] = y1;
+        xs[3] = x0;
+        ys[3] = y1;
+        float rotation = geometry[g + 6];
+        if (rotation != 0.0f)
+        {
+            float pivotX = geometry[g + 4];
+            float pivotY = geometry[g + 5];
+            float cos = (float) Math.cos(rotation);
+            float sin = (float) Math.sin(rotation);
+            for (int i = 0; i < 4; i++)
+            {
+                float dx = xs[i] - pivotX;
+                float dy = ys[i] - pivotY;
+                xs[i] = pivotX + dx * cos - dy * sin;
+                ys[i] = pivotY + dx * sin + dy * cos;
+            }
+        }
+    }
+}
@@ -0,0 +1,589 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.function.IntConsumer;
+
+import java.util.stream.IntStream;
+
+import processing.core.PImage;
+
+import processing.data.JSONArray;
+import processing.data.JSONObject;
+
+/**
+ * Sprite sheet, a single decoded sheet image sliced into frames by grid or by
+ * named frames and sequences described in TexturePacker or Aseprite JSON metadata.
+ *
+ * <p>
+ * JSON metadata in either the hash or the array form of <code>"frames"</code> is supported,
+ * including trimmed frames and per-frame <code>"duration"</code> in milliseconds.  Named
+ * sequences are read from Aseprite <code>"meta.frameTags"</code> if present, honoring the
+ * <code>"forward"</code>, <code>"reverse"</code>, and <code>"pingpong"</code> directions;
+ * otherwise frames are grouped into sequences by name with any file extension and
+ * trailing frame number removed, e.g. <code>walk_01.png</code> and <code>walk_02.png</code>
+ * form the sequence <code>walk</code>.  The sequence index is built once, when the
+ * sprite sheet is created.  Rotated frames are not supported.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class SpriteSheet
+{
+    /** Sheet image. */
+    private final PImage image;
+
+    /** Regions keyed by frame name, in frame order. */
+    private final Map<String, Region> frames = new LinkedHashMap<String, Region>();
+
+    /** Frame durations in milliseconds keyed by frame name, if any. */
+    private final Map<String, Integer> durations = new HashMap<String, Integer>();
+
+    /** Lists of frame names keyed by sequence name, in the order found. */
+    private final Map<String, List<String>> sequences = new LinkedHashMap<String, List<String>>();
+
+    /** Lists of regions keyed by sequence name. */
+    private final Map<String, List<Region>> regions = new LinkedHashMap<String, List<Region>>();
+
+    /** Lists of frame images keyed by sequence name or grid, created lazily. */
+    private final Map<String, List<PImage>> images = new HashMap<String, List<PImage>>();
+
+    /** Natural order for frame names, comparing runs of digits numerically. */
+    private static final Comparator<String> NATURAL_ORDER = new Comparator<String>()
+        {
+            @Override
+            public int compare(final String s0, final String s1)
+            {
+                int i = 0;
+                int j = 0;
+                while (i < s0.length() && j < s1.length())
+                {
+                    char c0 = s0.charAt(i);
+                    char c1 = s1.charAt(j);
+                    if (Character.isDigit(c0) && Character.isDigit(c1))
+                    {
+                        int start0 = i;
+                        int start1 = j;
+                        while (i < s0.length() && Character.isDigit(s0.charAt(i)))
+                        {
+                            i++;
+                        }
+                        while (j < s1.length() && Character.isDigit(s1.charAt(j)))
+                        {
+                            j++;
+                        }
+                        String digits0 = s0.substring(start0, i).replaceFirst("^0+(?=.)", "");
+                        String digits1 = s1.substring(start1, j).replaceFirst("^0+(?=.)", "");
+                        int result = (digits0.length() != digits1.length())
+                            ? digits0.length() - digits1.length() : digits0.compareTo(digits1);
+                        if (result != 0)
+                        {
+                            return result;
+                        }
+                    }
+                    else
+                    {
+                        if (c0 != c1)
+                        {
+                            return c0 - c1;
+                        }
+                        i++;
+                        j++;
+                    }
+                }
+                return (s0.length() - i) - (s1.length() - j);
+            }
+        };
+
+
+    /**
+     * Create a new sprite sheet.
+     *
+     * @param image sheet image, must not be null
+     * @param metadata TexturePacker or Aseprite JSON metadata, if any
+     */
+    SpriteSheet(final PImage image, final JSONObject metadata)
+    {
+        if (image == null)
+        {
+            throw new NullPointerException("image must not be null");
+        }
+        this.image = image;
+        if (metadata != null)
+        {
+            readFrames(metadata);
+            readSequences(metadata);
+            for (Map.Entry<String, List<String>> entry : sequences.entrySet())
+            {
+                List<Region> list = new ArrayList<Region>(entry.getValue().size());
+                for (String frameName : entry.getValue())
+                {
+                    list.add(frames.get(frameName));
+                }
+                regions.put(entry.getKey(), Collections.unmodifiableList(list));
+            }
+        }
+    }
+
+
+    /**
+     * Return the sheet image for this sprite sheet.
+     *
+     * @return the sheet image for this sprite sheet
+     */
+    public PImage getImage()
+    {
+        return image;
+    }
+
+    /**
+     * Return the regions of a grid of cells in this sprite sheet, in row-major order.
+     *
+     * @param cellWidth cell width, must be at least one
+     * @param cellHeight cell height, must be at least one
+     * @param margin margin around the grid, must be at least zero
+     * @param spacing spacing between cells, must be at least zero
+     * @return the regions of a grid of cells in this sprite sheet, in row-major order
+     */
+    public List<Region> getGridRegions(final int cellWidth, final int cellHeight, final int margin, final int spacing)
+    {
+        if (cellWidth < 1)
+        {
+            throw new IllegalArgumentException("cellWidth must be at least 1");
+        }
+        if (cellHeight < 1)
+        {
+            throw new IllegalArgumentException("cellHeight must be at least 1");
+        }
+        if (margin < 0)
+        {
+            throw new IllegalArgumentException("margin must be at least 0");
+        }
+        if (spacing < 0)
+        {
+            throw new IllegalArgumentException("spacing must be at least 0");
+        }
+        int columns = Math.max(0, (image.width - margin + spacing) / (cellWidth + spacing));
+        int rows = Math.max(0, (image.height - margin + spacing) / (cellHeight + spacing));
+        List<Region> grid = new ArrayList<Region>(columns * rows);
+        for (int row = 0; row < rows; row++)
+        {
+            for (int column = 0; column < columns; column++)
+            {
+                grid.add(new Region(image, margin + column * (cellWidth + spacing), margin + row * (cellHeight + spacing),
+                                    cellWidth, cellHeight));
+            }
+        }
+        return Collections.unmodifiableList(grid);
+    }
+
+    /**
+     * Return the frame images of a grid of cells in this sprite sheet, in row-major order.
+     * The grid is sliced in a single pass the first time it is requested and shared thereafter.
+     *
+     * @param cellWidth cell width, must be at least one
+     * @param cellHeight cell height, must be at least one
+     * @param margin margin around the grid, must be at least zero
+     * @param spacing spacing between cells, must be at least zero
+     * @return the frame images of a grid of cells in this sprite sheet, in row-major order
+     */
+    public List<PImage> getGrid(final int cellWidth, final int cellHeight, final int margin, final int spacing)
+    {
+        String key = "grid:" + cellWidth + "," + cellHeight + "," + margin + "," + spacing;
+        synchronized (images)
+        {
+            List<PImage> grid = images.get(key);
+            if (grid == null)
+            {
+                grid = slice(getGridRegions(cellWidth, cellHeight, margin, spacing));
+                images.put(key, grid);
+            }
+            return grid;
+        }
+    }
+
+    /**
+     * Return the names of the frames described by the metadata for this sprite sheet, in frame order.
+     *
+     * @return the names of the frames described by the metadata for this sprite sheet
+     */
+    public Set<String> getFrameNames()
+    {
+        return Collections.unmodifiableSet(frames.keySet());
+    }
+
+    /**
+     * Return the region for the specified frame name.
+     *
+     * @param frameName frame name, must not be null
+     * @return the region for the specified frame name
+     * @throws IllegalArgumentException if no frame exists for the specified frame name
+     */
+    public Region getRegion(final String frameName)
+    {
+        if (frameName == null)
+        {
+            throw new NullPointerException("frameName must not be null");
+        }
+        Region region = frames.get(frameName);
+        if (region == null)
+        {
+            throw new IllegalArgumentException("no frame for name " + frameName);
+        }
+        return region;
+    }
+
+    /**
+     * Return the names of the sequences in this sprite sheet.
+     *
+     * @return the names of the sequences in this sprite sheet
+     */
+    public Set<String> getNames()
+    {
+        return Collections.unmodifiableSet(regions.keySet());
+    }
+
+    /**
+     * Return the list of regions for the sequence with the specified name.
+     *
+     * @param name sequence name, must not be null
+     * @return the list of regions for the sequence with the specified name
+     * @throws IllegalArgumentException if no sequence exists for the specified name
+     */
+    public List<Region> getRegions(final String name)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name must not be null");
+        }
+        List<Region> list = regions.get(name);
+        if (list == null)
+        {
+            throw new IllegalArgumentException("no sequence for name " + name);
+        }
+        return list;
+    }
+
+    /**
+     * Return the list of frame images for the sequence with the specified name.
+     * Frame images are copied out of the sheet image the first time they are requested
+     * and shared thereafter.
+     *
+     * @param name sequence name, must not be null
+     * @return the list of frame images for the sequence with the specified name
+     * @throws IllegalArgumentException if no sequence exists for the specified name
+     */
+    public List<PImage> getFrames(final String name)
+    {
+        List<Region> list = getRegions(name);
+        String key = "sequence:" + name;
+        synchronized (images)
+        {
+            List<PImage> frameImages = images.get(key);
+            if (frameImages == null)
+            {
+                frameImages = slice(list);
+                images.put(key, frameImages);
+            }
+            return frameImages;
+        }
+    }
+
+    /**
+     * Return the frame durations in milliseconds for the sequence with the specified name,
+     * or null if the metadata does not describe a duration for every frame in the sequence.
+     *
+     * @param name sequence name, must not be null
+     * @return the frame durations in milliseconds for the sequence with the specified name,
+     *    or null if the metadata does not describe a duration for every frame in the sequence
+     * @throws IllegalArgumentException if no sequence exists for the specified name
+     */
+    public int[] getDurations(final String name)
+    {
+        getRegions(name);
+        List<String> frameNames = sequences.get(name);
+        int[] result = new int[frameNames.size()];
+        for (int i = 0; i < result.length; i++)
+        {
+            Integer duration = durations.get(frameNames.get(i));
+            if (duration == null)
+            {
+                return null;
+            }
+            result[i] = duration.intValue();
+        }
+        return result;
+    }
+
+    /**
+     * Create and return a new region animation for the sequence with the specified name.
+     *
+     * @param name sequence name, must not be null
+     * @return a new region animation for the sequence with the specified name
+     */
+    public RegionAnimation createAnimation(final String name)
+    {
+        return new RegionAnimation(getRegions(name), false);
+    }
+
+    /**
+     * Create and return a new looped region animation for the sequence with the specified name.
+     *
+     * @param name sequence name, must not be null
+     * @return a new looped region animation for the sequence with the specified name
+     */
+    public RegionAnimation createLoopedAnimation(final String name)
+    {
+        return new RegionAnimation(getRegions(name), true);
+    }
+
+    /**
+     * Create and return a new timed frames animation for the sequence with the specified name,
+     * using the frame durations from the metadata for this sprite sheet.
+     *
+     * @param name sequence name, must not be null
+     * @return a new timed frames animation for the sequence with the specified name
+     * @throws IllegalArgumentException if the metadata does not describe a duration for
+     *    every frame in the sequence
+     */
+    public TimedFramesAnimation createTimedAnimation(final String name)
+    {
+        return new TimedFramesAnimation(getFrames(name), requireDurations(name), false);
+    }
+
+    /**
+     * Create and return a new looped timed frames animation for the sequence with the specified name,
+     * using the frame durations from the metadata for this sprite sheet.
+     *
+     * @param name sequence name, must not be null
+     * @return a new looped timed frames animation for the sequence with the specified name
+     * @throws IllegalArgumentException if the metadata does not describe a duration for
+     *    every frame in the sequence
+     */
+    public TimedFramesAnimation createLoopedTimedAnimation(final String name)
+    {
+        return new TimedFramesAnimation(getFrames(name), requireDurations(name), true);
+    }
+
+    private int[] requireDurations(final String name)
+    {
+        int[] result = getDurations(name);
+        if (result == null)
+        {
+            throw new IllegalArgumentException("no durations for sequence " + name);
+        }
+        return result;
+    }
+
+    /**
+     * Copy the specified regions of the sheet image into new frame images, in parallel.
+     *
+     * @param list list of regions
+     * @return an unmodifiable list of new frame images
+     */
+    private List<PImage> slice(final List<Region> list)
+    {
+        long start = System.nanoTime();
+        final Region[] source = list.toArray(new Region[list.size()]);
+        final PImage[] sliced = new PImage[source.length];
+        image.loadPixels();
+        IntStream.range(0, source.length).parallel().forEach(new IntConsumer()
+            {
+                @Override
+                public void accept(final int i)
+                {
+                    sliced[i] = FramesMetrics.getInstance().track(source[i].toImage());
+                }
+            });
+        FramesMetrics.getInstance().recordTransform("sliceSpriteSheet", System.nanoTime() - start);
+        List<PImage> result = new ArrayList<PImage>(sliced.length);
+        Collections.addAll(result, sliced);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Read the frames described by the specified metadata.
+     *
+     * @param metadata metadata
+     */
+    private void readFrames(final JSONObject metadata)
+    {
+        Object value = metadata.get("frames");
+        if (value instanceof JSONArray)
+        {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.size(); i++)
+            {
+                JSONObject frame = array.getJSONObject(i);
+                readFrame(frame.getString("filename"), frame);
+            }
+        }
+        else if (value instanceof JSONObject)
+        {
+            // JSONObject does not preserve key order, restore frame order by name
+            JSONObject hash = (JSONObject) value;
+            List<String> names = new ArrayList<String>();
+            for (Object key : hash.keys())
+            {
+                names.add((String) key);
+            }
+            Collections.sort(names, NATURAL_ORDER);
+            for (String name : names)
+            {
+                readFrame(name, hash.getJSONObject(name));
+            }
+        }
+        else
+        {
+            throw new IllegalArgumentException("metadata must contain frames");
+        }
+    }
+
+    /**
+     * Read the specified frame.
+     *
+     * @param name frame name
+     * @param frame frame metadata
+     */
+    private void readFrame(final String name, final JSONObject frame)
+    {
+        if (frame.getBoolean("rotated", false))
+        {
+            throw new IllegalArgumentException("rotated frame " + name + " is not supported");
+        }
+        JSONObject bounds = frame.getJSONObject("frame");
+        int x = bounds.getInt("x");
+        int y = bounds.getInt("y");
+        int w = bounds.getInt("w");
+        int h = bounds.getInt("h");
+        Region region;
+        if (frame.getBoolean("trimmed", false))
+        {
+            JSONObject spriteSourceSize = frame.getJSONObject("spriteSourceSize");
+            JSONObject sourceSize = frame.getJSONObject("sourceSize");
+            region = new Region(image, x, y, w, h, spriteSourceSize.getInt("x"), spriteSourceSize.getInt("y"),
+                                sourceSize.getInt("w"), sourceSize.getInt("h"));
+        }
+        else
+        {
+            region = new Region(image, x, y, w, h);
+        }
+        frames.put(name, region);
+        if (frame.hasKey("duration"))
+        {
+            durations.put(name, Integer.valueOf(frame.getInt("duration")));
+        }
+    }
+
+    /**
+     * Read the sequences described by the specified metadata, from frame tags if present
+     * or else by frame name.
+     *
+     * @param metadata metadata
+     */
+    private void readSequences(final JSONObject metadata)
+    {
+        List<String> frameNames = new ArrayList<String>(frames.keySet());
+        JSONObject meta = metadata.hasKey("meta") ? metadata.getJSONObject("meta") : null;
+        JSONArray frameTags = (meta != null && meta.hasKey("frameTags")) ? meta.getJSONArray("frameTags") : null;
+        if (frameTags != null && frameTags.size() > 0)
+        {
+            for (int i = 0; i < frameTags.size(); i++)
+            {
+                JSONObject frameTag = frameTags.getJSONObject(i);
+                String name = frameTag.getString("name");
+                int from = frameTag.getInt("from");
+                int to = frameTag.getInt("to");
+                if (from < 0 || to < from || to >= frameNames.size())
+                {
+                    throw new IllegalArgumentException("frame tag " + name + " out of range");
+                }
+                String direction = frameTag.getString("direction", "forward");
+                List<String> sequence = new ArrayList<String>(frameNames.subList(from, to + 1));
+                if ("reverse".equals(direction))
+                {
+                    Collections.reverse(sequence);
+                }
+                else if ("pingpong".equals(direction))
+                {
+                    for (int j = to - 1; j > from; j--)
+                    {
+                        sequence.add(frameNames.get(j));
+                    }
+                }
+                sequences.put(name, sequence);
+            }
+        }
+        else
+        {
+            for (String frameName : frameNames)
+            {
+                String name = sequenceName(frameName);
+                List<String> sequence = sequences.get(name);
+                if (sequence == null)
+                {
+                    sequence = new ArrayList<String>();
+                    sequences.put(name, sequence);
+                }
+                sequence.add(frameName);
+            }
+        }
+    }
+
+    /**
+     * Return the sequence name for the specified frame name, with any file extension,
+     * trailing frame number, and trailing separators removed.
+     *
+     * @param frameName frame name
+     * @return the sequence name for the specified frame name
+     */
+    private static String sequenceName(final String frameName)
+    {
+        String name = frameName;
+        int dot = name.lastIndexOf('.');
+        if (dot > name.lastIndexOf('/'))
+        {
+            name = name.substring(0, dot);
+        }
+        int end = name.length();
+        while (end > 0 && Character.isDigit(name.charAt(end - 1)))
+        {
+            end--;
+        }
+        while (end > 0 && " _-/.".indexOf(name.charAt(end - 1)) >= 0)
+        {
+            end--;
+        }
+        return end == 0 ? frameName : name.substring(0, end);
+    }
+}
@@ -0,0 +1,334 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import java.util.function.IntFunction;
+
+import processing.core.PImage;
+
+/**
+ * Frames animation that streams its frames, decoding a bounded window of frames
+ * ahead of the current frame on background threads and releasing frames behind it.
+ *
+ * <p>
+ * At most <code>lookAhead + 1</code> frames are held in memory regardless of the
+ * length of the animation.  {@link #getCurrentFrame()} never blocks; if the next
+ * frame has not yet been decoded when this animation is advanced, the current frame
+ * is held and the stall is counted.  Frames that fail to decode are skipped.
+ * </p>
+ *
+ * <p>
+ * Frames are decoded on the executor service of the frames library that created this
+ * animation.  Once that executor service has been shut down, for example by
+ * {@link Frames#dispose()} when the sketch stops, frames are instead decoded synchronously
+ * on the thread advancing this animation, including any frames whose background decode
+ * was dropped or interrupted by the shutdown.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class StreamingFramesAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** Current frame. */
+    private PImage currentFrame;
+
+    /** Number of frames. */
+    private final int frames;
+
+    /** Number of frames to decode ahead of the current frame. */
+    private final int lookAhead;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** Frame loader. */
+    private final IntFunction<PImage> loader;
+
+    /** Executor service for decoding frames. */
+    private final ExecutorService executor;
+
+    /** Window of pending and decoded frames keyed by index. */
+    private final Map<Integer, Future<PImage>> window = new HashMap<Integer, Future<PImage>>();
+
+    /** Number of stalls. */
+    private long stalls = 0L;
+
+
+    /**
+     * Create a new streaming frames animation.  Blocks until the first frame has been decoded.
+     *
+     * @param frames number of frames, must be at least one
+     * @param lookAhead number of frames to decode ahead of the current frame, must be at least one
+     * @param looped true if this animation loops
+     * @param loader frame loader, must not be null and must be safe to call from multiple threads
+     * @param executor executor service for decoding frames, must not be null
+     * @throws IllegalStateException if the first frame could not be decoded
+     */
+    StreamingFramesAnimation(final int frames, final int lookAhead, final boolean looped,
+                             final IntFunction<PImage> loader, final ExecutorService executor)
+    {
+        if (frames < 1)
+        {
+            throw new IllegalArgumentException("frames must be at least 1");
+        }
+        if (lookAhead < 1)
+        {
+            throw new IllegalArgumentException("lookAhead must be at least 1");
+        }
+        if (loader == null)
+        {
+            throw new NullPointerException("loader must not be null");
+        }
+        if (executor == null)
+        {
+            throw new NullPointerException("executor must not be null");
+        }
+        this.frames = frames;
+        this.lookAhead = lookAhead;
+        this.looped = looped;
+        this.loader = loader;
+        this.executor = executor;
+
+        fill();
+        try
+        {
+            currentFrame = window.get(0).get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            dispose();
+            throw new IllegalStateException("interrupted waiting for first frame", e);
+        }
+        catch (ExecutionException e)
+        {
+            dispose();
+            throw new IllegalStateException("could not load first frame", e.getCause());
+        }
+        if (currentFrame == null)
+        {
+            dispose();
+            throw new IllegalStateException("could not load first frame");
+        }
+    }
+
+
+    /**
+     * Return the number of frames in this animation.
+     *
+     * @return the number of frames in this animation
+     */
+    public int size()
+    {
+        return frames;
+    }
+
+    /**
+     * Return the index of the current frame.
+     *
+     * @return the index of the current frame
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Return the number of times advancing this animation held the current frame
+     * because the next frame had not yet been decoded.
+     *
+     * @return the number of stalls
+     */
+    public long getStallCount()
+    {
+        return stalls;
+    }
+
+    /**
+     * Cancel decoding any pending frames and release all the frames held by this
+     * animation other than the current frame.
+     */
+    public void dispose()
+    {
+        for (Future<PImage> future : window.values())
+        {
+            future.cancel(true);
+        }
+        window.clear();
+    }
+
+    @Override
+    public boolean advance()
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        int next = next(index);
+        if (next == index)
+        {
+            return false;
+        }
+        Future<PImage> future = window.get(next);
+        if (future == null)
+        {
+            fill();
+            future = window.get(next);
+        }
+        if (executor.isShutdown() && (!future.isDone() || future.isCancelled()))
+        {
+            future.cancel(true);
+            future = decodeNow(next);
+            window.put(next, future);
+        }
+        if (!future.isDone())
+        {
+            stalls++;
+            return false;
+        }
+        index = next;
+        PImage frame = getNow(future);
+        boolean changed = false;
+        if (frame != null && frame != currentFrame)
+        {
+            currentFrame = frame;
+            changed = true;
+        }
+        release();
+        fill();
+        return changed;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return currentFrame;
+    }
+
+    private int next(final int i)
+    {
+        if (i + 1 < frames)
+        {
+            return i + 1;
+        }
+        return looped ? 0 : i;
+    }
+
+    private boolean inWindow(final int i)
+    {
+        int distance = i - index;
+        if (distance < 0 && looped)
+        {
+            distance += frames;
+        }
+        return distance >= 0 && distance <= lookAhead;
+    }
+
+    private void release()
+    {
+        for (Iterator<Map.Entry<Integer, Future<PImage>>> entries = window.entrySet().iterator(); entries.hasNext(); )
+        {
+            Map.Entry<Integer, Future<PImage>> entry = entries.next();
+            if (!inWindow(entry.getKey()))
+            {
+                entry.getValue().cancel(true);
+                entries.remove();
+            }
+        }
+    }
+
+    private void fill()
+    {
+        int i = index;
+        for (int n = 0; n <= lookAhead; n++)
+        {
+            if (!window.containsKey(i))
+            {
+                Future<PImage> future;
+                try
+                {
+                    future = executor.submit(decode(i));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    future = decodeNow(i);
+                }
+                window.put(i, future);
+            }
+            int next = next(i);
+            if (next == i || next == index)
+            {
+                break;
+            }
+            i = next;
+        }
+    }
+
+    private Callable<PImage> decode(final int frame)
+    {
+        return new Callable<PImage>()
+            {
+                @Override
+                public PImage call()
+                {
+                    return loader.apply(frame);
+                }
+            };
+    }
+
+    private Future<PImage> decodeNow(final int frame)
+    {
+        FutureTask<PImage> future = new FutureTask<PImage>(decode(frame));
+        future.run();
+        return future;
+    }
+
+    private static PImage getNow(final Future<PImage> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import processing.core.PImage;
+
+/**
+ * Texture atlas, one or more page images with named lists of regions packed into them.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class TextureAtlas
+{
+    /** List of page images. */
+    private final List<PImage> pages;
+
+    /** Lists of regions keyed by name. */
+    private final Map<String, List<Region>> regions;
+
+
+    /**
+     * Create a new texture atlas.
+     *
+     * @param pages list of page images
+     * @param regions lists of regions keyed by name
+     */
+    TextureAtlas(final List<PImage> pages, final Map<String, List<Region>> regions)
+    {
+        this.pages = Collections.unmodifiableList(new ArrayList<PImage>(pages));
+        Map<String, List<Region>> copy = new LinkedHashMap<String, List<Region>>(regions.size());
+        for (Map.Entry<String, List<Region>> entry : regions.entrySet())
+        {
+            copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<Region>(entry.getValue())));
+        }
+        this.regions = Collections.unmodifiableMap(copy);
+    }
+
+
+    /**
+     * Return the page images for this texture atlas.
+     *
+     * @return the page images for this texture atlas
+     */
+    public List<PImage> getPages()
+    {
+        return pages;
+    }
+
+    /**
+     * Return the names of the lists of regions in this texture atlas, in the order they were added.
+     *
+     * @return the names of the lists of regions in this texture atlas
+     */
+    public Set<String> getNames()
+    {
+        return regions.keySet();
+    }
+
+    /**
+     * Return the list of regions for the specified name.
+     *
+     * @param name name, must not be null
+     * @return the list of regions for the specified name
+     * @throws IllegalArgumentException if no list of regions exists for the specified name
+     */
+    public List<Region> getRegions(final String name)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name must not be null");
+        }
+        List<Region> list = regions.get(name);
+        if (list == null)
+        {
+            throw new IllegalArgumentException("no regions for name " + name);
+        }
+        return list;
+    }
+
+    /**
+     * Create and return a new region animation for the list of regions with the specified name.
+     *
+     * @param name name, must not be null
+     * @return a new region animation for the list of regions with the specified name
+     */
+    public RegionAnimation createAnimation(final String name)
+    {
+        return new RegionAnimation(getRegions(name), false);
+    }
+
+    /**
+     * Create and return a new looped region animation for the list of regions with the specified name.
+     *
+     * @param name name, must not be null
+     * @return a new looped region animation for the list of regions with the specified name
+     */
+    public RegionAnimation createLoopedAnimation(final String name)
+    {
+        return new RegionAnimation(getRegions(name), true);
+    }
+}
@@ -0,0 +1,515 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import processing.core.PImage;
+
+/**
+ * Texture atlas builder, which trims transparent borders from frame images and packs
+ * them into one or more page images with a skyline bottom-left bin packer.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class TextureAtlasBuilder
+{
+    /** Default maximum page size, <code>2048</code>. */
+    public static final int DEFAULT_MAX_PAGE_SIZE = 2048;
+
+    /** Default padding between packed frame images, <code>1</code>. */
+    public static final int DEFAULT_PADDING = 1;
+
+    /** Maximum page width. */
+    private int maxPageWidth = DEFAULT_MAX_PAGE_SIZE;
+
+    /** Maximum page height. */
+    private int maxPageHeight = DEFAULT_MAX_PAGE_SIZE;
+
+    /** Padding between packed frame images. */
+    private int padding = DEFAULT_PADDING;
+
+    /** True if transparent borders should be trimmed. */
+    private boolean trim = true;
+
+    /** Lists of frame images keyed by name. */
+    private final Map<String, List<PImage>> frames = new LinkedHashMap<String, List<PImage>>();
+
+
+    /**
+     * Create a new texture atlas builder.
+     */
+    TextureAtlasBuilder()
+    {
+        // empty
+    }
+
+
+    /**
+     * Set the maximum page size for this texture atlas builder.
+     *
+     * @param maxPageWidth maximum page width, must be at least one
+     * @param maxPageHeight maximum page height, must be at least one
+     * @return this texture atlas builder
+     */
+    public TextureAtlasBuilder withMaxPageSize(final int maxPageWidth, final int maxPageHeight)
+    {
+        if (maxPageWidth < 1)
+        {
+            throw new IllegalArgumentException("maxPageWidth must be at least 1");
+        }
+        if (maxPageHeight < 1)
+        {
+            throw new IllegalArgumentException("maxPageHeight must be at least 1");
+        }
+        this.maxPageWidth = maxPageWidth;
+        this.maxPageHeight = maxPageHeight;
+        return this;
+    }
+
+    /**
+     * Set the padding between packed frame images for this texture atlas builder.
+     *
+     * @param padding padding between packed frame images, must be at least zero
+     * @return this texture atlas builder
+     */
+    public TextureAtlasBuilder withPadding(final int padding)
+    {
+        if (padding < 0)
+        {
+            throw new IllegalArgumentException("padding must be at least 0");
+        }
+        this.padding = padding;
+        return this;
+    }
+
+    /**
+     * Set whether transparent borders should be trimmed from frame images for this texture atlas builder.
+     *
+     * @param trim true if transparent borders should be trimmed
+     * @return this texture atlas builder
+     */
+    public TextureAtlasBuilder withTrim(final boolean trim)
+    {
+        this.trim = trim;
+        return this;
+    }
+
+    /**
+     * Add the specified list of frame images with the specified name to this texture atlas builder.
+     *
+     * @param name name, must not be null
+     * @param frameImages list of frame images, must not be null
+     * @return this texture atlas builder
+     */
+    public TextureAtlasBuilder add(final String name, final List<PImage> frameImages)
+    {
+        if (name == null)
+        {
+            throw new NullPointerException("name must not be null");
+        }
+        if (frameImages == null)
+        {
+            throw new NullPointerException("frameImages must not be null");
+        }
+        frames.put(name, new ArrayList<PImage>(frameImages));
+        return this;
+    }
+
+    /**
+     * Add the specified frame images with the specified name to this texture atlas builder.
+     *
+     * @param name name, must not be null
+     * @param frameImages one or more frame images, must not be null
+     * @return this texture atlas builder
+     */
+    public TextureAtlasBuilder add(final String name, final PImage... frameImages)
+    {
+        if (frameImages == null)
+        {
+            throw new NullPointerException("frameImages must not be null");
+        }
+        return add(name, Arrays.asList(frameImages));
+    }
+
+    /**
+     * Pack the frame images added to this texture atlas builder and return a new texture atlas.
+     *
+     * @return a new texture atlas
+     * @throws IllegalArgumentException if a frame image is larger than the maximum page size
+     */
+    public TextureAtlas build()
+    {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<Entry>();
+        for (Map.Entry<String, List<PImage>> entry : frames.entrySet())
+        {
+            List<PImage> list = entry.getValue();
+            for (int i = 0, size = list.size(); i < size; i++)
+            {
+                Entry e = new Entry(entry.getKey(), list.get(i), trim);
+                if (e.width + padding > maxPageWidth || e.height + padding > maxPageHeight)
+                {
+                    throw new IllegalArgumentException("frame image " + i + " of " + entry.getKey()
+                                                       + " is larger than the maximum page size");
+                }
+                entries.add(e);
+            }
+        }
+
+        // pack tallest first
+        List<Entry> sorted = new ArrayList<Entry>(entries);
+        Collections.sort(sorted, new Comparator<Entry>()
+            {
+                @Override
+                public int compare(final Entry e0, final Entry e1)
+                {
+                    if (e0.height != e1.height)
+                    {
+                        return e1.height - e0.height;
+                    }
+                    return e1.width - e0.width;
+                }
+            });
+
+        List<Skyline> skylines = new ArrayList<Skyline>();
+        for (Entry entry : sorted)
+        {
+            boolean placed = false;
+            for (int page = 0, size = skylines.size(); page < size && !placed; page++)
+            {
+                placed = place(skylines.get(page), page, entry);
+            }
+            if (!placed)
+            {
+                Skyline skyline = new Skyline(maxPageWidth, maxPageHeight);
+                skylines.add(skyline);
+                if (!place(skyline, skylines.size() - 1, entry))
+                {
+                    throw new IllegalStateException("could not place frame image on an empty page");
+                }
+            }
+        }
+
+        List<PImage> pages = new ArrayList<PImage>(skylines.size());
+        for (Skyline skyline : skylines)
+        {
+            pages.add(new PImage(Math.max(1, skyline.usedWidth), Math.max(1, skyline.usedHeight), PImage.ARGB));
+        }
+        for (Entry entry : entries)
+        {
+            PImage page = pages.get(entry.page);
+            Pixels.blit(entry.pixels, entry.image.width, entry.offsetX, entry.offsetY, entry.width, entry.height,
+                        page.pixels, page.width, entry.x, entry.y);
+        }
+        for (PImage page : pages)
+        {
+            page.updatePixels();
+            FramesMetrics.getInstance().track(page);
+        }
+
+        Map<String, List<Region>> regions = new LinkedHashMap<String, List<Region>>(frames.size());
+        for (Entry entry : entries)
+        {
+            List<Region> list = regions.get(entry.name);
+            if (list == null)
+            {
+                list = new ArrayList<Region>();
+                regions.put(entry.name, list);
+            }
+            list.add(new Region(pages.get(entry.page), entry.x, entry.y, entry.width, entry.height,
+                                entry.offsetX, entry.offsetY, entry.image.width, entry.image.height));
+        }
+        for (String name : frames.keySet())
+        {
+            if (!regions.containsKey(name))
+            {
+                regions.put(name, Collections.<Region>emptyList());
+            }
+        }
+        FramesMetrics.getInstance().recordTransform("createTextureAtlas", System.nanoTime() - start);
+        return new TextureAtlas(pages, regions);
+    }
+
+    private boolean place(final Skyline skyline, final int page, final Entry entry)
+    {
+        int[] location = skyline.place(entry.width + padding, entry.height + padding);
+        if (location == null)
+        {
+            return false;
+        }
+        entry.page = page;
+        entry.x = location[0];
+        entry.y = location[1];
+        return true;
+    }
+
+    /**
+     * Frame image to pack.
+     */
+    private static final class Entry
+    {
+        /** Name. */
+        private final String name;
+
+        /** Frame image. */
+        private final PImage image;
+
+        /** Frame image pixels as ARGB. */
+        private final int[] pixels;
+
+        /** Trimmed offset x. */
+        private int offsetX;
+
+        /** Trimmed offset y. */
+        private int offsetY;
+
+        /** Trimmed width. */
+        private int width;
+
+        /** Trimmed height. */
+        private int height;
+
+        /** Page index. */
+        private int page;
+
+        /** Packed x. */
+        private int x;
+
+        /** Packed y. */
+        private int y;
+
+
+        /**
+         * Create a new entry.
+         *
+         * @param name name
+         * @param image frame image
+         * @param trim true if transparent borders should be trimmed
+         */
+        Entry(final String name, final PImage image, final boolean trim)
+        {
+            this.name = name;
+            this.image = image;
+            this.pixels = Pixels.argb(image);
+            this.offsetX = 0;
+            this.offsetY = 0;
+            this.width = image.width;
+            this.height = image.height;
+            if (trim && image.format == PImage.ARGB)
+            {
+                trim();
+            }
+        }
+
+
+        private void trim()
+        {
+            int stride = image.width;
+            int left = image.width;
+            int right = -1;
+            int top = image.height;
+            int bottom = -1;
+            for (int j = 0; j < image.height; j++)
+            {
+                for (int i = 0, offset = j * stride; i < image.width; i++, offset++)
+                {
+                    if ((pixels[offset] & 0xff000000) != 0)
+                    {
+                        left = Math.min(left, i);
+                        right = Math.max(right, i);
+                        top = Math.min(top, j);
+                        bottom = Math.max(bottom, j);
+                    }
+                }
+            }
+            if (right < 0)
+            {
+                // fully transparent, keep a single pixel
+                width = Math.min(1, image.width);
+                height = Math.min(1, image.height);
+            }
+            else
+            {
+                offsetX = left;
+                offsetY = top;
+                width = right - left + 1;
+                height = bottom - top + 1;
+            }
+        }
+    }
+
+    /**
+     * Skyline bottom-left bin packer for a single page.
+     */
+    private static final class Skyline
+    {
+        /** Maximum page width. */
+        private final int maxWidth;
+
+        /** Maximum page height. */
+        private final int maxHeight;
+
+        /** Skyline segment x locations. */
+        private int[] xs = new int[16];
+
+        /** Skyline segment y locations. */
+        private int[] ys = new int[16];
+
+        /** Skyline segment widths. */
+        private int[] widths = new int[16];
+
+        /** Number of skyline segments. */
+        private int count;
+
+        /** Used page width. */
+        private int usedWidth = 0;
+
+        /** Used page height. */
+        private int usedHeight = 0;
+
+
+        /**
+         * Create a new skyline for a page with the specified maximum size.
+         *
+         * @param maxWidth maximum page width
+         * @param maxHeight maximum page height
+         */
+        Skyline(final int maxWidth, final int maxHeight)
+        {
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            xs[0] = 0;
+            ys[0] = 0;
+            widths[0] = maxWidth;
+            count = 1;
+        }
+
+
+        /**
+         * Place a rectangle of the specified size at the lowest, then leftmost, location it fits.
+         *
+         * @param width width
+         * @param height height
+         * @return the <code>{x, y}</code> location of the placed rectangle, or null if it does not fit
+         */
+        int[] place(final int width, final int height)
+        {
+            int bestIndex = -1;
+            int bestX = 0;
+            int bestY = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++)
+            {
+                int x = xs[i];
+                if (x + width > maxWidth)
+                {
+                    break;
+                }
+                int y = 0;
+                int remaining = width;
+                for (int j = i; remaining > 0; j++)
+                {
+                    y = Math.max(y, ys[j]);
+                    remaining -= widths[j];
+                }
+                if (y + height <= maxHeight && y < bestY)
+                {
+                    bestIndex = i;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+            if (bestIndex < 0)
+            {
+                return null;
+            }
+            insert(bestIndex, bestX, bestY + height, width);
+            usedWidth = Math.max(usedWidth, Math.min(maxWidth, bestX + width));
+            usedHeight = Math.max(usedHeight, Math.min(maxHeight, bestY + height));
+            return new int[] { bestX, bestY };
+        }
+
+        private void insert(final int index, final int x, final int y, final int width)
+        {
+            // shrink or remove segments covered by the new segment
+            int end = x + width;
+            int i = index;
+            while (i < count && xs[i] < end)
+            {
+                int segmentEnd = xs[i] + widths[i];
+                if (segmentEnd <= end)
+                {
+                    remove(i);
+                }
+                else
+                {
+                    widths[i] = segmentEnd - end;
+                    xs[i] = end;
+                    break;
+                }
+            }
+            // insert the new segment
+            if (count == xs.length)
+            {
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+                widths = Arrays.copyOf(widths, count * 2);
+            }
+            System.arraycopy(xs, index, xs, index + 1, count - index);
+            System.arraycopy(ys, index, ys, index + 1, count - index);
+            System.arraycopy(widths, index, widths, index + 1, count - index);
+            xs[index] = x;
+            ys[index] = y;
+            widths[index] = width;
+            count++;
+            // merge adjacent segments at the same height
+            for (int j = 0; j < count - 1;)
+            {
+                if (ys[j] == ys[j + 1])
+                {
+                    widths[j] += widths[j + 1];
+                    remove(j + 1);
+                }
+                else
+                {
+                    j++;
+                }
+            }
+        }
+
+        private void remove(final int index)
+        {
+            System.arraycopy(xs, index + 1, xs, index, count - index - 1);
+            System.arraycopy(ys, index + 1, ys, index, count - index - 1);
+            System.arraycopy(widths, index + 1, widths, index, count - index - 1);
+            count--;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.Arrays;
+import java.util.List;
+
+import processing.core.PImage;
+
+/**
+ * Frames animation driven by a clock instead of by the number of calls to
+ * {@link #advance()}.  Each frame has a duration in milliseconds, and advancing to a
+ * given time jumps directly to the frame visible at that time, skipping frames as necessary.
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class TimedFramesAnimation implements Animation
+{
+    /** Index of the current frame. */
+    private int index = 0;
+
+    /** Start time in nanoseconds, or <code>Long.MIN_VALUE</code> if not yet started. */
+    private long start = Long.MIN_VALUE;
+
+    /** True if this animation loops. */
+    private final boolean looped;
+
+    /** Array of frames. */
+    private final PImage[] frames;
+
+    /** Cumulative end times of each frame in nanoseconds. */
+    private final long[] ends;
+
+    /** Total duration in nanoseconds. */
+    private final long duration;
+
+
+    /**
+     * Create a new timed frames animation with the specified list of frames and frame durations.
+     *
+     * @param frames list of frames, must not be null or empty
+     * @param durations frame durations in milliseconds, must not be null, must be the same
+     *    length as <code>frames</code>, and each must be at least one
+     * @param looped true if this animation loops
+     */
+    TimedFramesAnimation(final List<PImage> frames, final int[] durations, final boolean looped)
+    {
+        if (frames == null)
+        {
+            throw new NullPointerException("frames must not be null");
+        }
+        if (frames.isEmpty())
+        {
+            throw new IllegalArgumentException("frames must not be empty");
+        }
+        if (durations == null)
+        {
+            throw new NullPointerException("durations must not be null");
+        }
+        if (durations.length != frames.size())
+        {
+            throw new IllegalArgumentException("durations must be the same length as frames");
+        }
+        this.frames = frames.toArray(new PImage[frames.size()]);
+        this.looped = looped;
+        ends = new long[durations.length];
+        long end = 0L;
+        for (int i = 0; i < durations.length; i++)
+        {
+            if (durations[i] < 1)
+            {
+                throw new IllegalArgumentException("durations must be at least 1");
+            }
+            end += durations[i] * 1000000L;
+            ends[i] = end;
+        }
+        duration = end;
+    }
+
+
+    /**
+     * Reset.  The animation restarts at the first frame on the next call to advance.
+     */
+    public void reset()
+    {
+        index = 0;
+        start = Long.MIN_VALUE;
+    }
+
+    /**
+     * Reset to the first frame, starting at the specified time.
+     *
+     * @param nowNanos start time in nanoseconds, as from <code>System.nanoTime()</code>
+     */
+    public void reset(final long nowNanos)
+    {
+        index = 0;
+        start = nowNanos;
+    }
+
+    /**
+     * Return the index of the current frame.
+     *
+     * @return the index of the current frame
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Return true if this animation does not loop and has reached its last frame.
+     *
+     * @return true if this animation does not loop and has reached its last frame
+     */
+    public boolean isFinished()
+    {
+        return !looped && index == frames.length - 1;
+    }
+
+    /**
+     * Advance this animation to the frame visible at the current time, as
+     * from <code>System.nanoTime()</code>.
+     *
+     * @return true if the current frame changed
+     */
+    @Override
+    public boolean advance()
+    {
+        return advance(System.nanoTime());
+    }
+
+    /**
+     * Advance this animation to the frame visible at the specified time.  The first call
+     * to advance after creation or {@link #reset()} starts this animation at that time.
+     *
+     * @param nowNanos current time in nanoseconds, as from <code>System.nanoTime()</code>
+     * @return true if the current frame changed
+     */
+    public boolean advance(final long nowNanos)
+    {
+        FramesMetrics.getInstance().advanced(1L);
+        if (start == Long.MIN_VALUE)
+        {
+            start = nowNanos;
+        }
+        long elapsed = nowNanos - start;
+        int next;
+        if (elapsed < 0L)
+        {
+            next = 0;
+        }
+        else if (elapsed >= duration && !looped)
+        {
+            next = frames.length - 1;
+        }
+        else
+        {
+            next = indexOf(elapsed % duration);
+        }
+        boolean changed = next != index;
+        index = next;
+        return changed;
+    }
+
+    @Override
+    public PImage getCurrentFrame()
+    {
+        return frames[index];
+    }
+
+    private int indexOf(final long time)
+    {
+        int i = Arrays.binarySearch(ends, time);
+        return i < 0 ? -i - 1 : i + 1;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+
+    Frames animation library for Processing.
+    Copyright (c) 2012-2020 held jointly by the individual authors.
+
+    This file is part of Frames animation library for Processing.
+
+    Frames animation library for Processing is free software: you can redistribute it and/or
+    modify it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Frames animation library for Processing is distributed in the hope that it will be
+    useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Frames animation library for Processing.  If not, see
+    <http://www.gnu.org/licenses/>.
+
+*/
+package org.dishevelled.processing.frames;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import java.util.function.IntConsumer;
+
+import java.util.stream.IntStream;
+
+import processing.core.PImage;
+
+/**
+ * Unmodifiable list of frame images derived from a source list of frame images by a
+ * frame transform, evaluated lazily.
+ *
+ * <p>
+ * Each frame image is transformed the first time it is requested and then memoized,
+ * so variants that are never displayed cost nothing.  Transformed frames may themselves
+ * be the source of further transformed frames, sharing the memoized intermediate frames.
+ * Transformed frames are safe for use by multiple threads.
+ * </p>
+ *
+ * @since 1.2
+ * @author  Michael Heuer
+ */
+public final class TransformedFrames extends AbstractList<PImage> implements RandomAccess, SharedFrames
+{
+    /** Source frame images. */
+    private final List<PImage> source;
+
+    /** Frame transform. */
+    private final FrameTransform transform;
+
+    /** Transformed frame images, null until transformed. */
+    private final AtomicReferenceArray<PImage> frames;
+
+
+    /**
+     * Create new transformed frames.
+     *
+     * @param source list of source frame images, must not be null
+     * @param transform frame transform, must not be null
+     */
+    TransformedFrames(final List<PImage> source, final FrameTransform transform)
+    {
+        if (source == null)
+        {
+            throw new NullPointerException("source must not be null");
+        }
+        if (transform == null)
+        {
+            throw new NullPointerException("transform must not be null");
+        }
+        this.source = (source instanceof SharedFrames) ? source : new ArrayList<PImage>(source);
+        this.transform = transform;
+        this.frames = new AtomicReferenceArray<PImage>(this.source.size());
+    }
+
+
+    @Override
+    public PImage get(final int index)
+    {
+        PImage frame = frames.get(index);
+        if (frame == null)
+        {
+            long start = System.nanoTime();
+            frame = transform.apply(source.get(index));
+            FramesMetrics.getInstance().recordTransform("transform", System.nanoTime() - start);
+            if (frames.compareAndSet(index, null, frame))
+            {
+                FramesMetrics.getInstance().track(frame);
+            }
+            else
+            {
+                frame = frames.get(index);
+            }
+        }
+        return frame;
+    }
+
+    @Override
+    public int size()
+    {
+        return source.size();
+    }
+
+    /**
+     * Return the frame transform for these transformed frames.
+     *
+     * @return the frame transform for these transformed frames
+     */
+    public FrameTransform getTransform()
+    {
+        return transform;
+    }
+
+    /**
+     * Return true if the specified frame image has been transformed.
+     *
+     * @param index index
+     * @return true if the specified frame image has been transformed
+     */
+    public boolean isTransformed(final int index)
+    {
+        return frames.get(index) != null;
+    }
+
+    /**
+     * Transform all the frame images not yet transformed, in parallel.
+     *
+     * @return these transformed frames
+     */
+    public TransformedFrames prefetch()
+    {
+        IntStream.range(0, size()).parallel().forEach(new IntConsumer()
+            {
+                @Override
+                public void accept(final int index)
+                {
+                    get(index);
+                }
+            });
+        return this;
+    }
+}